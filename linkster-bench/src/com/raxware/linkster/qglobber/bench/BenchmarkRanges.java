@@ -0,0 +1,77 @@
+/*
+ Licensed to the Apache Software Foundation (ASF) under one
+ or more contributor license agreements.  See the NOTICE file
+ distributed with this work for additional information
+ regarding copyright ownership.  The ASF licenses this file
+ to you under the Apache License, Version 2.0 (the
+ "License"); you may not use this file except in compliance
+ with the License.  You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing,
+ software distributed under the License is distributed on an
+ "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ KIND, either express or implied.  See the License for the
+ specific language governing permissions and limitations
+ under the License.
+ */
+package com.raxware.linkster.qglobber.bench;
+
+import com.raxware.linkster.qglobber.Globber;
+
+/**
+ * Builds the templates and ranges the benchmarks are parameterized on.
+ *
+ * @author Will Chapman
+ */
+final class BenchmarkRanges {
+
+    private static final String[] LEVELS = {"slot:/Building", "/Floor", "/AHU", "/VAV"};
+
+    private BenchmarkRanges() {
+    }
+
+    /**
+     * @param dimensions how many placeholders, 1 to 4
+     * @return a template in the style of a real site, one placeholder per level
+     */
+    static String template(int dimensions) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < dimensions; i++) {
+            sb.append(LEVELS[i]).append(Globber.PLACE_HOLDER);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Only the last dimension is made alpha, which is how VAV suffixes
+     * (VAV12A, VAV12B...) show up in practice.
+     *
+     * @param dimensions how many ranges
+     * @param width      how many values in each range
+     * @param alpha      true to make the last range alpha
+     * @return the ranges
+     */
+    static String[] ranges(int dimensions, int width, boolean alpha) {
+        String[] ranges = new String[dimensions];
+        for (int i = 0; i < dimensions; i++) {
+            ranges[i] = sequence(width, alpha && i == dimensions - 1);
+        }
+        return ranges;
+    }
+
+    /**
+     * Alpha ranges are capped at A..Z.
+     *
+     * @param width how many values
+     * @param alpha true for an alpha range
+     * @return a single sequence
+     */
+    static String sequence(int width, boolean alpha) {
+        if (alpha) {
+            return "A:A.." + (char) ('A' + Math.min(width, 26) - 1);
+        }
+        return "1.." + width;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ Licensed to the Apache Software Foundation (ASF) under one
+ or more contributor license agreements.  See the NOTICE file
+ distributed with this work for additional information
+ regarding copyright ownership.  The ASF licenses this file
+ to you under the Apache License, Version 2.0 (the
+ "License"); you may not use this file except in compliance
+ with the License.  You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing,
+ software distributed under the License is distributed on an
+ "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ KIND, either express or implied.  See the License for the
+ specific language governing permissions and limitations
+ under the License.
+ */
+package com.raxware.linkster.qglobber.bench;
+
+import com.raxware.linkster.qglobber.CompiledTemplate;
+import com.raxware.linkster.qglobber.Globber;
+import com.raxware.linkster.qglobber.OrdBuffer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks a complete expansion of a template, comparing the original
+ * recursive <code>explodeSequence</code> against the lazy and compiled
+ * engines.  Each invocation expands every row, so the scores are in
+ * complete expansions per second.
+ *
+ * @author Will Chapman
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExplodeBenchmark {
+
+    @Param({"1", "2", "3", "4"})
+    public int dimensions;
+
+    @Param({"5", "20"})
+    public int width;
+
+    @Param({"false", "true"})
+    public boolean alpha;
+
+    private String template;
+    private String[] ranges;
+    private CompiledTemplate compiled;
+    private int[] coords;
+    private OrdBuffer buf;
+
+    @Setup
+    public void setup() {
+        template = BenchmarkRanges.template(dimensions);
+        ranges = BenchmarkRanges.ranges(dimensions, width, alpha);
+        compiled = Globber.compile(template, ranges);
+        coords = new int[compiled.getDimensions()];
+        buf = compiled.newBuffer();
+    }
+
+    @Benchmark
+    public ArrayList explodeSequence() {
+        return Globber.explodeSequence(template, ranges, 0);
+    }
+
+    @Benchmark
+    public void iterator(Blackhole bh) {
+        Iterator<String> it = Globber.iterator(template, ranges);
+        while (it.hasNext()) {
+            bh.consume(it.next());
+        }
+    }
+
+    /**
+     * Renders every row into the same buffer without creating strings.
+     */
+    @Benchmark
+    public void compiledRender(Blackhole bh) {
+        compiled.first(coords);
+        do {
+            bh.consume(compiled.render(coords, buf));
+        } while (compiled.increment(coords));
+    }
+
+    /**
+     * Visits every row's coordinates without rendering.
+     */
+    @Benchmark
+    public long visitCoordinates() {
+        return compiled.visit((index, c, ord) -> c[0] >= 0, false);
+    }
+
+    /**
+     * Sums the lengths rather than counting, since a sized stream can
+     * answer <code>count()</code> without expanding anything.
+     */
+    @Benchmark
+    public long parallelStream() {
+        return compiled.stream(true).mapToLong(String::length).sum();
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ Licensed to the Apache Software Foundation (ASF) under one
+ or more contributor license agreements.  See the NOTICE file
+ distributed with this work for additional information
+ regarding copyright ownership.  The ASF licenses this file
+ to you under the Apache License, Version 2.0 (the
+ "License"); you may not use this file except in compliance
+ with the License.  You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing,
+ software distributed under the License is distributed on an
+ "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ KIND, either express or implied.  See the License for the
+ specific language governing permissions and limitations
+ under the License.
+ */
+package com.raxware.linkster.qglobber.bench;
+
+import com.raxware.linkster.qglobber.Globber;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the string helpers in <code>Globber</code> that every
+ * expansion goes through.
+ *
+ * @author Will Chapman
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GlobberBenchmark {
+
+    private String rangeList;
+    private String template;
+
+    /**
+     * The single range used by <code>explodeSingleNumericalSequence</code>.
+     * Only that benchmark uses this state, so <code>split</code> and
+     * <code>replace</code> run once rather than once per width and kind.
+     */
+    @State(Scope.Thread)
+    public static class Sequence {
+
+        @Param({"5", "50"})
+        public int width;
+
+        @Param({"false", "true"})
+        public boolean alpha;
+
+        private String sequence;
+
+        @Setup
+        public void setup() {
+            sequence = BenchmarkRanges.sequence(width, alpha);
+        }
+    }
+
+    @Setup
+    public void setup() {
+        rangeList = "1..20,1..10,1..50,A:A..D";
+        template = "slot:/Building{[]}/Floor{[]}/VAV{[]}";
+    }
+
+    @Benchmark
+    public String[] split() {
+        return Globber.split(rangeList, ',', false);
+    }
+
+    @Benchmark
+    public String replace() {
+        return Globber.replace(template, Globber.PLACE_HOLDER, "12", -1);
+    }
+
+    @Benchmark
+    public ArrayList explodeSingleNumericalSequence(Sequence s) {
+        return Globber.explodeSingleNumericalSequence(template, s.sequence);
+    }
+}
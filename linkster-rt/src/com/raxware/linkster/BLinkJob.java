@@ -0,0 +1,455 @@
+/*
+ Licensed to the Apache Software Foundation (ASF) under one
+ or more contributor license agreements.  See the NOTICE file
+ distributed with this work for additional information
+ regarding copyright ownership.  The ASF licenses this file
+ to you under the Apache License, Version 2.0 (the
+ "License"); you may not use this file except in compliance
+ with the License.  You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing,
+ software distributed under the License is distributed on an
+ "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ KIND, either express or implied.  See the License for the
+ specific language governing permissions and limitations
+ under the License.
+ */
+package com.raxware.linkster;
+
+import com.raxware.linkster.engine.DryRunReport;
+import com.raxware.linkster.engine.LinkMonitor;
+import com.raxware.linkster.engine.LinkSummary;
+
+import javax.baja.job.BJobState;
+import javax.baja.job.BSimpleJob;
+import javax.baja.job.JobCancelException;
+import javax.baja.nre.annotations.NiagaraProperty;
+import javax.baja.nre.annotations.NiagaraType;
+import javax.baja.sys.BRelTime;
+import javax.baja.sys.Context;
+import javax.baja.sys.Flags;
+import javax.baja.sys.Property;
+import javax.baja.sys.Sys;
+import javax.baja.sys.Type;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Runs an analysis, a dry run or a link of a plan as a background job in the station,
+ * so Workbench stays responsive no matter how big the plan is.
+ * <p>
+ * Progress is published between batches of rows: rows done, rows per second
+ * and an estimate of the time left.  Canceling the job stops it at the end of
+ * the current batch; links already made are kept, and the job ends as
+ * canceled rather than failed, with what was done so far as its result.
+ *
+ * @author Will Chapman
+ */
+
+@NiagaraType
+@NiagaraProperty(
+        name = "plan",
+        type = "BLinkPlan",
+        defaultValue = "new BLinkPlan()"
+)
+@NiagaraProperty(
+        name = "analyzeOnly",
+        type = "boolean",
+        defaultValue = "false"
+)
+@NiagaraProperty(
+        name = "dryRun",
+        type = "boolean",
+        defaultValue = "false"
+)
+@NiagaraProperty(
+        name = "rowsDone",
+        type = "long",
+        defaultValue = "0L",
+        flags = Flags.READONLY | Flags.TRANSIENT
+)
+@NiagaraProperty(
+        name = "rowsTotal",
+        type = "long",
+        defaultValue = "0L",
+        flags = Flags.READONLY | Flags.TRANSIENT
+)
+@NiagaraProperty(
+        name = "rowsPerSecond",
+        type = "double",
+        defaultValue = "0.0",
+        flags = Flags.READONLY | Flags.TRANSIENT
+)
+@NiagaraProperty(
+        name = "timeRemaining",
+        type = "BRelTime",
+        defaultValue = "BRelTime.DEFAULT",
+        flags = Flags.READONLY | Flags.TRANSIENT
+)
+@NiagaraProperty(
+        name = "result",
+        type = "String",
+        defaultValue = "",
+        flags = Flags.READONLY | Flags.TRANSIENT
+)
+public class BLinkJob extends BSimpleJob implements LinkMonitor {
+
+    private BLinksterService service;
+    private BLinkTask task;
+    private long startMillis;
+    private int lastLoggedPercent;
+
+    public BLinkJob() {
+    }
+
+    /**
+     * @param service     the service that runs the plan
+     * @param plan        the plan, copied so later changes to it do not affect the job
+     * @param analyzeOnly true to only analyze the plan, false to link it
+     */
+    public BLinkJob(BLinksterService service, BLinkPlan plan, boolean analyzeOnly) {
+        this.service = service;
+        setPlan((BLinkPlan) plan.newCopy());
+        setAnalyzeOnly(analyzeOnly);
+    }
+
+    /**
+     * @param task told the result when the job is done, null if the job was not started by a task
+     */
+    public void setTask(BLinkTask task) {
+        this.task = task;
+    }
+
+    public void run(Context cx) throws Exception {
+        if (service == null) {
+            throw new IllegalStateException("Link jobs must be submitted through the LinksterService");
+        }
+
+        boolean canceled;
+        try {
+            canceled = runPlan(cx);
+        } catch (CancellationException e) {
+            setResult("CANCELED - " + e.getMessage());
+            log().message(getResult());
+            canceled = true;
+        } catch (Exception e) {
+            setResult("ERROR - " + e.getMessage());
+            throw e;
+        } finally {
+            if (task != null) {
+                task.jobDone(getResult());
+            }
+        }
+        if (canceled) {
+            throw new JobCancelException();
+        }
+    }
+
+    /**
+     * @return true if the plan stopped early because the job was canceled
+     */
+    private boolean runPlan(Context cx) {
+        startMillis = System.currentTimeMillis();
+        lastLoggedPercent = -1;
+        if (getDryRun()) {
+            log().message("Dry run of " + getPlan().describe());
+            DryRunReport report = service.dryRun(getPlan(), cx, this);
+            setResult(report.toString());
+            log().message(report.toString());
+            return report.isCanceled();
+        } else if (getAnalyzeOnly()) {
+            log().message("Analyzing " + getPlan().describe());
+            setResult(service.analyze(getPlan(), cx, this));
+            log().message("Check complete");
+            return false;
+        } else {
+            log().message("Linking " + getPlan().describe());
+            LinkSummary summary = service.link(getPlan(), cx, this);
+            setResult(summary.toString());
+            log().message(summary.toString());
+            return summary.isCanceled();
+        }
+    }
+
+    public boolean isCanceled() {
+        BJobState state = getJobState();
+        return state == BJobState.canceling || state == BJobState.canceled || Thread.currentThread().isInterrupted();
+    }
+
+    public void progress(long done, long total) {
+        long elapsed = Math.max(1, System.currentTimeMillis() - startMillis);
+        double rate = done * 1000.0 / elapsed;
+        setRowsDone(done);
+        setRowsTotal(total);
+        setRowsPerSecond(rate);
+        setTimeRemaining(rate > 0 ? BRelTime.make((long) ((total - done) / rate * 1000)) : BRelTime.DEFAULT);
+
+        int percent = total == 0 ? 100 : (int) (done * 100 / total);
+        progress(percent);
+
+        // a line in the job log every ten percent is plenty
+        if (percent / 10 != lastLoggedPercent / 10) {
+            lastLoggedPercent = percent;
+            log().message(done + " of " + total + " rows, " + (long) rate + " rows/sec, "
+                    + getTimeRemaining() + " remaining");
+        }
+    }
+
+
+    /*+ ------------ BEGIN BAJA AUTO GENERATED CODE ------------ +*/
+    /*@ $com.raxware.linkster.BLinkJob(2590477133)1.0$ @*/
+    /* Generated Sat Oct 17 20:12:50 EDT 2026 by Slot-o-Matic (c) Tridium, Inc. 2012 */
+
+////////////////////////////////////////////////////////////////
+// Property "plan"
+////////////////////////////////////////////////////////////////
+
+    /**
+     * Slot for the {@code plan} property.
+     *
+     * @see #getPlan
+     * @see #setPlan
+     */
+    public static final Property plan = newProperty(0, new BLinkPlan(), null);
+
+    /**
+     * Get the {@code plan} property.
+     *
+     * @see #plan
+     */
+    public BLinkPlan getPlan() {
+        return (BLinkPlan) get(plan);
+    }
+
+    /**
+     * Set the {@code plan} property.
+     *
+     * @see #plan
+     */
+    public void setPlan(BLinkPlan v) {
+        set(plan, v, null);
+    }
+
+////////////////////////////////////////////////////////////////
+// Property "analyzeOnly"
+////////////////////////////////////////////////////////////////
+
+    /**
+     * Slot for the {@code analyzeOnly} property.
+     *
+     * @see #getAnalyzeOnly
+     * @see #setAnalyzeOnly
+     */
+    public static final Property analyzeOnly = newProperty(0, false, null);
+
+    /**
+     * Get the {@code analyzeOnly} property.
+     *
+     * @see #analyzeOnly
+     */
+    public boolean getAnalyzeOnly() {
+        return getBoolean(analyzeOnly);
+    }
+
+    /**
+     * Set the {@code analyzeOnly} property.
+     *
+     * @see #analyzeOnly
+     */
+    public void setAnalyzeOnly(boolean v) {
+        setBoolean(analyzeOnly, v, null);
+    }
+
+////////////////////////////////////////////////////////////////
+// Property "dryRun"
+////////////////////////////////////////////////////////////////
+
+    /**
+     * Slot for the {@code dryRun} property.
+     *
+     * @see #getDryRun
+     * @see #setDryRun
+     */
+    public static final Property dryRun = newProperty(0, false, null);
+
+    /**
+     * Get the {@code dryRun} property.
+     *
+     * @see #dryRun
+     */
+    public boolean getDryRun() {
+        return getBoolean(dryRun);
+    }
+
+    /**
+     * Set the {@code dryRun} property.
+     *
+     * @see #dryRun
+     */
+    public void setDryRun(boolean v) {
+        setBoolean(dryRun, v, null);
+    }
+
+////////////////////////////////////////////////////////////////
+// Property "rowsDone"
+////////////////////////////////////////////////////////////////
+
+    /**
+     * Slot for the {@code rowsDone} property.
+     *
+     * @see #getRowsDone
+     * @see #setRowsDone
+     */
+    public static final Property rowsDone = newProperty(Flags.READONLY | Flags.TRANSIENT, 0L, null);
+
+    /**
+     * Get the {@code rowsDone} property.
+     *
+     * @see #rowsDone
+     */
+    public long getRowsDone() {
+        return getLong(rowsDone);
+    }
+
+    /**
+     * Set the {@code rowsDone} property.
+     *
+     * @see #rowsDone
+     */
+    public void setRowsDone(long v) {
+        setLong(rowsDone, v, null);
+    }
+
+////////////////////////////////////////////////////////////////
+// Property "rowsTotal"
+////////////////////////////////////////////////////////////////
+
+    /**
+     * Slot for the {@code rowsTotal} property.
+     *
+     * @see #getRowsTotal
+     * @see #setRowsTotal
+     */
+    public static final Property rowsTotal = newProperty(Flags.READONLY | Flags.TRANSIENT, 0L, null);
+
+    /**
+     * Get the {@code rowsTotal} property.
+     *
+     * @see #rowsTotal
+     */
+    public long getRowsTotal() {
+        return getLong(rowsTotal);
+    }
+
+    /**
+     * Set the {@code rowsTotal} property.
+     *
+     * @see #rowsTotal
+     */
+    public void setRowsTotal(long v) {
+        setLong(rowsTotal, v, null);
+    }
+
+////////////////////////////////////////////////////////////////
+// Property "rowsPerSecond"
+////////////////////////////////////////////////////////////////
+
+    /**
+     * Slot for the {@code rowsPerSecond} property.
+     *
+     * @see #getRowsPerSecond
+     * @see #setRowsPerSecond
+     */
+    public static final Property rowsPerSecond = newProperty(Flags.READONLY | Flags.TRANSIENT, 0.0, null);
+
+    /**
+     * Get the {@code rowsPerSecond} property.
+     *
+     * @see #rowsPerSecond
+     */
+    public double getRowsPerSecond() {
+        return getDouble(rowsPerSecond);
+    }
+
+    /**
+     * Set the {@code rowsPerSecond} property.
+     *
+     * @see #rowsPerSecond
+     */
+    public void setRowsPerSecond(double v) {
+        setDouble(rowsPerSecond, v, null);
+    }
+
+////////////////////////////////////////////////////////////////
+// Property "timeRemaining"
+////////////////////////////////////////////////////////////////
+
+    /**
+     * Slot for the {@code timeRemaining} property.
+     *
+     * @see #getTimeRemaining
+     * @see #setTimeRemaining
+     */
+    public static final Property timeRemaining = newProperty(Flags.READONLY | Flags.TRANSIENT, BRelTime.DEFAULT, null);
+
+    /**
+     * Get the {@code timeRemaining} property.
+     *
+     * @see #timeRemaining
+     */
+    public BRelTime getTimeRemaining() {
+        return (BRelTime) get(timeRemaining);
+    }
+
+    /**
+     * Set the {@code timeRemaining} property.
+     *
+     * @see #timeRemaining
+     */
+    public void setTimeRemaining(BRelTime v) {
+        set(timeRemaining, v, null);
+    }
+
+////////////////////////////////////////////////////////////////
+// Property "result"
+////////////////////////////////////////////////////////////////
+
+    /**
+     * Slot for the {@code result} property.
+     *
+     * @see #getResult
+     * @see #setResult
+     */
+    public static final Property result = newProperty(Flags.READONLY | Flags.TRANSIENT, "", null);
+
+    /**
+     * Get the {@code result} property.
+     *
+     * @see #result
+     */
+    public String getResult() {
+        return getString(result);
+    }
+
+    /**
+     * Set the {@code result} property.
+     *
+     * @see #result
+     */
+    public void setResult(String v) {
+        setString(result, v, null);
+    }
+
+////////////////////////////////////////////////////////////////
+// Type
+////////////////////////////////////////////////////////////////
+    public Type getType() {
+        return TYPE;
+    }
+
+    public static final Type TYPE = Sys.loadType(BLinkJob.class);
+
+    /*+ ------------ END BAJA AUTO GENERATED CODE -------------- +*/
+}
@@ -0,0 +1,470 @@
+/*
+ Licensed to the Apache Software Foundation (ASF) under one
+ or more contributor license agreements.  See the NOTICE file
+ distributed with this work for additional information
+ regarding copyright ownership.  The ASF licenses this file
+ to you under the Apache License, Version 2.0 (the
+ "License"); you may not use this file except in compliance
+ with the License.  You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing,
+ software distributed under the License is distributed on an
+ "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ KIND, either express or implied.  See the License for the
+ specific language governing permissions and limitations
+ under the License.
+ */
+package com.raxware.linkster;
+
+import com.raxware.linkster.qglobber.Globber;
+
+import javax.baja.naming.BOrd;
+import javax.baja.nre.annotations.NiagaraProperty;
+import javax.baja.nre.annotations.NiagaraType;
+import javax.baja.sys.BStruct;
+import javax.baja.sys.Property;
+import javax.baja.sys.Sys;
+import javax.baja.sys.Type;
+
+import java.util.Arrays;
+
+/**
+ * A compact description of a link job: the template, range and slot for each
+ * side, exactly as they are typed into the tool view.  Sending this to the
+ * station instead of the expanded rows keeps the request a few hundred bytes
+ * no matter how many links it produces.
+ * <p>
+ * As in the tool view, each side expands <code>template + "." + slot</code>,
+ * so whichever of the two holds the placeholders is the one exploded.  A
+ * side's slot may also be a comma separated list, see <code>getSlotPairs</code>.
+ * <p>
+ * Rows are paired by position unless <code>join</code> says which
+ * placeholders must match, see <code>RowPairing</code>.
+ * <p>
+ * With <code>reconcile</code> set, links the targets already have are left
+ * alone and only the missing ones are added; <code>removeStale</code> also
+ * removes links this tool made earlier that the plan no longer asks for.
+ * <p>
+ * A plan can instead name a link plan file in <code>planFile</code>, written
+ * offline with <code>PlanFileTool</code>; each of its records names both
+ * components and both slots, and the templates are not used.
+ *
+ * @author Will Chapman
+ */
+
+@NiagaraType
+@NiagaraProperty(name = "fromTemplate", type = "String", defaultValue = "")
+@NiagaraProperty(name = "fromRange", type = "String", defaultValue = "")
+@NiagaraProperty(name = "fromSlot", type = "String", defaultValue = "")
+@NiagaraProperty(name = "toTemplate", type = "String", defaultValue = "")
+@NiagaraProperty(name = "toRange", type = "String", defaultValue = "")
+@NiagaraProperty(name = "toSlot", type = "String", defaultValue = "")
+@NiagaraProperty(name = "join", type = "String", defaultValue = "")
+@NiagaraProperty(name = "reconcile", type = "boolean", defaultValue = "false")
+@NiagaraProperty(name = "removeStale", type = "boolean", defaultValue = "false")
+@NiagaraProperty(name = "planFile", type = "BOrd", defaultValue = "BOrd.NULL")
+public final class BLinkPlan extends BStruct {
+
+    /**
+     * @return the pattern the "from" side expands, with its first slot
+     */
+    public String getFromPattern() {
+        return getFromTemplate() + "." + slotsOf(getFromSlot())[0];
+    }
+
+    /**
+     * @return the pattern the "to" side expands, with its first slot
+     */
+    public String getToPattern() {
+        return getToTemplate() + "." + slotsOf(getToSlot())[0];
+    }
+
+    /**
+     * Pairs up the slots when a side lists more than one, such as
+     * <code>out, status, fault</code> to <code>in1, in2, in3</code>, so each
+     * pair of components is resolved once and every pair of slots is linked.
+     * A side with a single slot is paired with each slot of the other.
+     *
+     * @return the "from" slots and the "to" slots, the same length, or null
+     * if each side has a single slot
+     * @throws IllegalArgumentException if the lists are different lengths, or
+     *                                  a list of slots holds placeholders
+     */
+    public String[][] getSlotPairs() {
+        String[] from = slotsOf(getFromSlot());
+        String[] to = slotsOf(getToSlot());
+        if (from.length == 1 && to.length == 1) {
+            return null;
+        }
+        if (getFromSlot().contains("{[]}") || getToSlot().contains("{[]}")) {
+            throw new IllegalArgumentException("A list of slots can not hold placeholders");
+        }
+        if (from.length == 1) {
+            from = fill(from[0], to.length);
+        } else if (to.length == 1) {
+            to = fill(to[0], from.length);
+        } else if (from.length != to.length) {
+            throw new IllegalArgumentException("Slot lists do not match (" + from.length + " != " + to.length + ")");
+        }
+        return new String[][]{from, to};
+    }
+
+    /**
+     * @param slot a slot name, or several separated by commas
+     * @return the slot names, never empty
+     */
+    public static String[] slotsOf(String slot) {
+        String[] slots = Globber.splitRanges(slot);
+        return slots.length == 0 ? new String[]{""} : slots;
+    }
+
+    private static String[] fill(String slot, int n) {
+        String[] slots = new String[n];
+        Arrays.fill(slots, slot);
+        return slots;
+    }
+
+    /**
+     * @return true if the links come from <code>planFile</code> rather than the templates
+     */
+    public boolean isFilePlan() {
+        return !getPlanFile().isNull();
+    }
+
+    /**
+     * @return what the plan links, for job logs
+     */
+    public String describe() {
+        return isFilePlan() ? "plan file " + getPlanFile() : getFromPattern() + " -> " + getToPattern();
+    }
+
+    /**
+     * @return a string that is the same for any two plans that would produce the same links
+     */
+    public String getKey() {
+        return getFromTemplate() + '\u0000' + getFromSlot().replaceAll("\\s", "") + '\u0000'
+                + getFromRange().replaceAll("\\s", "") + '\u0000'
+                + getToTemplate() + '\u0000' + getToSlot().replaceAll("\\s", "") + '\u0000'
+                + getToRange().replaceAll("\\s", "") + '\u0000'
+                + getJoin().replaceAll("\\s", "") + '\u0000'
+                + getPlanFile();
+    }
+
+
+    /*+ ------------ BEGIN BAJA AUTO GENERATED CODE ------------ +*/
+    /*@ $com.raxware.linkster.BLinkPlan(2979906276)1.0$ @*/
+    /* Generated Sat Oct 17 20:12:50 EDT 2026 by Slot-o-Matic (c) Tridium, Inc. 2012 */
+
+////////////////////////////////////////////////////////////////
+// Property "fromTemplate"
+////////////////////////////////////////////////////////////////
+
+    /**
+     * Slot for the {@code fromTemplate} property.
+     *
+     * @see #getFromTemplate
+     * @see #setFromTemplate
+     */
+    public static final Property fromTemplate = newProperty(0, "", null);
+
+    /**
+     * Get the {@code fromTemplate} property.
+     *
+     * @see #fromTemplate
+     */
+    public String getFromTemplate() {
+        return getString(fromTemplate);
+    }
+
+    /**
+     * Set the {@code fromTemplate} property.
+     *
+     * @see #fromTemplate
+     */
+    public void setFromTemplate(String v) {
+        setString(fromTemplate, v, null);
+    }
+
+////////////////////////////////////////////////////////////////
+// Property "fromRange"
+////////////////////////////////////////////////////////////////
+
+    /**
+     * Slot for the {@code fromRange} property.
+     *
+     * @see #getFromRange
+     * @see #setFromRange
+     */
+    public static final Property fromRange = newProperty(0, "", null);
+
+    /**
+     * Get the {@code fromRange} property.
+     *
+     * @see #fromRange
+     */
+    public String getFromRange() {
+        return getString(fromRange);
+    }
+
+    /**
+     * Set the {@code fromRange} property.
+     *
+     * @see #fromRange
+     */
+    public void setFromRange(String v) {
+        setString(fromRange, v, null);
+    }
+
+////////////////////////////////////////////////////////////////
+// Property "fromSlot"
+////////////////////////////////////////////////////////////////
+
+    /**
+     * Slot for the {@code fromSlot} property.
+     *
+     * @see #getFromSlot
+     * @see #setFromSlot
+     */
+    public static final Property fromSlot = newProperty(0, "", null);
+
+    /**
+     * Get the {@code fromSlot} property.
+     *
+     * @see #fromSlot
+     */
+    public String getFromSlot() {
+        return getString(fromSlot);
+    }
+
+    /**
+     * Set the {@code fromSlot} property.
+     *
+     * @see #fromSlot
+     */
+    public void setFromSlot(String v) {
+        setString(fromSlot, v, null);
+    }
+
+////////////////////////////////////////////////////////////////
+// Property "toTemplate"
+////////////////////////////////////////////////////////////////
+
+    /**
+     * Slot for the {@code toTemplate} property.
+     *
+     * @see #getToTemplate
+     * @see #setToTemplate
+     */
+    public static final Property toTemplate = newProperty(0, "", null);
+
+    /**
+     * Get the {@code toTemplate} property.
+     *
+     * @see #toTemplate
+     */
+    public String getToTemplate() {
+        return getString(toTemplate);
+    }
+
+    /**
+     * Set the {@code toTemplate} property.
+     *
+     * @see #toTemplate
+     */
+    public void setToTemplate(String v) {
+        setString(toTemplate, v, null);
+    }
+
+////////////////////////////////////////////////////////////////
+// Property "toRange"
+////////////////////////////////////////////////////////////////
+
+    /**
+     * Slot for the {@code toRange} property.
+     *
+     * @see #getToRange
+     * @see #setToRange
+     */
+    public static final Property toRange = newProperty(0, "", null);
+
+    /**
+     * Get the {@code toRange} property.
+     *
+     * @see #toRange
+     */
+    public String getToRange() {
+        return getString(toRange);
+    }
+
+    /**
+     * Set the {@code toRange} property.
+     *
+     * @see #toRange
+     */
+    public void setToRange(String v) {
+        setString(toRange, v, null);
+    }
+
+////////////////////////////////////////////////////////////////
+// Property "toSlot"
+////////////////////////////////////////////////////////////////
+
+    /**
+     * Slot for the {@code toSlot} property.
+     *
+     * @see #getToSlot
+     * @see #setToSlot
+     */
+    public static final Property toSlot = newProperty(0, "", null);
+
+    /**
+     * Get the {@code toSlot} property.
+     *
+     * @see #toSlot
+     */
+    public String getToSlot() {
+        return getString(toSlot);
+    }
+
+    /**
+     * Set the {@code toSlot} property.
+     *
+     * @see #toSlot
+     */
+    public void setToSlot(String v) {
+        setString(toSlot, v, null);
+    }
+
+////////////////////////////////////////////////////////////////
+// Property "join"
+////////////////////////////////////////////////////////////////
+
+    /**
+     * Slot for the {@code join} property.
+     *
+     * @see #getJoin
+     * @see #setJoin
+     */
+    public static final Property join = newProperty(0, "", null);
+
+    /**
+     * Get the {@code join} property.
+     *
+     * @see #join
+     */
+    public String getJoin() {
+        return getString(join);
+    }
+
+    /**
+     * Set the {@code join} property.
+     *
+     * @see #join
+     */
+    public void setJoin(String v) {
+        setString(join, v, null);
+    }
+
+////////////////////////////////////////////////////////////////
+// Property "reconcile"
+////////////////////////////////////////////////////////////////
+
+    /**
+     * Slot for the {@code reconcile} property.
+     *
+     * @see #getReconcile
+     * @see #setReconcile
+     */
+    public static final Property reconcile = newProperty(0, false, null);
+
+    /**
+     * Get the {@code reconcile} property.
+     *
+     * @see #reconcile
+     */
+    public boolean getReconcile() {
+        return getBoolean(reconcile);
+    }
+
+    /**
+     * Set the {@code reconcile} property.
+     *
+     * @see #reconcile
+     */
+    public void setReconcile(boolean v) {
+        setBoolean(reconcile, v, null);
+    }
+
+////////////////////////////////////////////////////////////////
+// Property "removeStale"
+////////////////////////////////////////////////////////////////
+
+    /**
+     * Slot for the {@code removeStale} property.
+     *
+     * @see #getRemoveStale
+     * @see #setRemoveStale
+     */
+    public static final Property removeStale = newProperty(0, false, null);
+
+    /**
+     * Get the {@code removeStale} property.
+     *
+     * @see #removeStale
+     */
+    public boolean getRemoveStale() {
+        return getBoolean(removeStale);
+    }
+
+    /**
+     * Set the {@code removeStale} property.
+     *
+     * @see #removeStale
+     */
+    public void setRemoveStale(boolean v) {
+        setBoolean(removeStale, v, null);
+    }
+
+////////////////////////////////////////////////////////////////
+// Property "planFile"
+////////////////////////////////////////////////////////////////
+
+    /**
+     * Slot for the {@code planFile} property.
+     *
+     * @see #getPlanFile
+     * @see #setPlanFile
+     */
+    public static final Property planFile = newProperty(0, BOrd.NULL, null);
+
+    /**
+     * Get the {@code planFile} property.
+     *
+     * @see #planFile
+     */
+    public BOrd getPlanFile() {
+        return (BOrd) get(planFile);
+    }
+
+    /**
+     * Set the {@code planFile} property.
+     *
+     * @see #planFile
+     */
+    public void setPlanFile(BOrd v) {
+        set(planFile, v, null);
+    }
+
+////////////////////////////////////////////////////////////////
+// Type
+////////////////////////////////////////////////////////////////
+    public Type getType() {
+        return TYPE;
+    }
+
+    public static final Type TYPE = Sys.loadType(BLinkPlan.class);
+
+    /*+ ------------ END BAJA AUTO GENERATED CODE -------------- +*/
+}
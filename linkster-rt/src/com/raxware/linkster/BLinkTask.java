@@ -0,0 +1,305 @@
+/*
+ Licensed to the Apache Software Foundation (ASF) under one
+ or more contributor license agreements.  See the NOTICE file
+ distributed with this work for additional information
+ regarding copyright ownership.  The ASF licenses this file
+ to you under the Apache License, Version 2.0 (the
+ "License"); you may not use this file except in compliance
+ with the License.  You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing,
+ software distributed under the License is distributed on an
+ "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ KIND, either express or implied.  See the License for the
+ specific language governing permissions and limitations
+ under the License.
+ */
+package com.raxware.linkster;
+
+import javax.baja.job.BJobService;
+import javax.baja.naming.BOrd;
+import javax.baja.nre.annotations.NiagaraAction;
+import javax.baja.nre.annotations.NiagaraProperty;
+import javax.baja.nre.annotations.NiagaraType;
+import javax.baja.sys.Action;
+import javax.baja.sys.BAbsTime;
+import javax.baja.sys.BComplex;
+import javax.baja.sys.BComponent;
+import javax.baja.sys.BIcon;
+import javax.baja.sys.Context;
+import javax.baja.sys.Flags;
+import javax.baja.sys.Property;
+import javax.baja.sys.Sys;
+import javax.baja.sys.Type;
+
+/**
+ * A saved link plan that lives under the LinksterService and runs entirely
+ * in the station, with no Workbench involved.
+ * <p>
+ * Fill in the plan once, then invoke <code>execute</code> from a program, a
+ * commissioning script or a link from a trigger schedule.  Each run is
+ * submitted as a background job; the ord of the job and its result are kept
+ * on the task.  Turning on the plan's <code>reconcile</code> makes running
+ * the same task again safe, since only the missing links are added.
+ *
+ * @author Will Chapman
+ */
+
+@NiagaraType
+@NiagaraProperty(
+        name = "plan",
+        type = "BLinkPlan",
+        defaultValue = "new BLinkPlan()"
+)
+@NiagaraProperty(
+        name = "lastRun",
+        type = "BAbsTime",
+        defaultValue = "BAbsTime.NULL",
+        flags = Flags.READONLY
+)
+@NiagaraProperty(
+        name = "lastJob",
+        type = "BOrd",
+        defaultValue = "BOrd.NULL",
+        flags = Flags.READONLY | Flags.TRANSIENT
+)
+@NiagaraProperty(
+        name = "lastResult",
+        type = "String",
+        defaultValue = "",
+        flags = Flags.READONLY | Flags.TRANSIENT
+)
+@NiagaraAction(
+        name = "execute"
+)
+@NiagaraAction(
+        name = "dryRun"
+)
+public class BLinkTask extends BComponent {
+
+    public BIcon getIcon() {
+        return BIcon.std("link.png");
+    }
+
+    public boolean isParentLegal(BComponent parent) {
+        return parent instanceof BLinksterService;
+    }
+
+    /**
+     * Links the plan in a background job.
+     */
+    public void doExecute(Context cx) {
+        submit(false, cx);
+    }
+
+    /**
+     * Checks the plan in a background job without linking anything.
+     */
+    public void doDryRun(Context cx) {
+        submit(true, cx);
+    }
+
+    private void submit(boolean dryRun, Context cx) {
+        BLinkJob job = new BLinkJob(getService(), getPlan(), false);
+        job.setDryRun(dryRun);
+        job.setTask(this);
+        setLastRun(BAbsTime.now());
+        setLastResult("Running...");
+        setLastJob(BJobService.getService().submit(job, cx));
+    }
+
+    /**
+     * Called by the job when it is done.
+     *
+     * @param result the summary or report of the job
+     */
+    void jobDone(String result) {
+        setLastResult(result);
+    }
+
+    private BLinksterService getService() {
+        BComplex parent = getParent();
+        if (!(parent instanceof BLinksterService)) {
+            throw new IllegalStateException("A LinkTask must be under the LinksterService");
+        }
+        return (BLinksterService) parent;
+    }
+
+
+    /*+ ------------ BEGIN BAJA AUTO GENERATED CODE ------------ +*/
+    /*@ $com.raxware.linkster.BLinkTask(1846322907)1.0$ @*/
+    /* Generated Sun Oct 18 10:05:12 EDT 2026 by Slot-o-Matic (c) Tridium, Inc. 2012 */
+
+////////////////////////////////////////////////////////////////
+// Property "plan"
+////////////////////////////////////////////////////////////////
+
+    /**
+     * Slot for the {@code plan} property.
+     *
+     * @see #getPlan
+     * @see #setPlan
+     */
+    public static final Property plan = newProperty(0, new BLinkPlan(), null);
+
+    /**
+     * Get the {@code plan} property.
+     *
+     * @see #plan
+     */
+    public BLinkPlan getPlan() {
+        return (BLinkPlan) get(plan);
+    }
+
+    /**
+     * Set the {@code plan} property.
+     *
+     * @see #plan
+     */
+    public void setPlan(BLinkPlan v) {
+        set(plan, v, null);
+    }
+
+////////////////////////////////////////////////////////////////
+// Property "lastRun"
+////////////////////////////////////////////////////////////////
+
+    /**
+     * Slot for the {@code lastRun} property.
+     *
+     * @see #getLastRun
+     * @see #setLastRun
+     */
+    public static final Property lastRun = newProperty(Flags.READONLY, BAbsTime.NULL, null);
+
+    /**
+     * Get the {@code lastRun} property.
+     *
+     * @see #lastRun
+     */
+    public BAbsTime getLastRun() {
+        return (BAbsTime) get(lastRun);
+    }
+
+    /**
+     * Set the {@code lastRun} property.
+     *
+     * @see #lastRun
+     */
+    public void setLastRun(BAbsTime v) {
+        set(lastRun, v, null);
+    }
+
+////////////////////////////////////////////////////////////////
+// Property "lastJob"
+////////////////////////////////////////////////////////////////
+
+    /**
+     * Slot for the {@code lastJob} property.
+     *
+     * @see #getLastJob
+     * @see #setLastJob
+     */
+    public static final Property lastJob = newProperty(Flags.READONLY | Flags.TRANSIENT, BOrd.NULL, null);
+
+    /**
+     * Get the {@code lastJob} property.
+     *
+     * @see #lastJob
+     */
+    public BOrd getLastJob() {
+        return (BOrd) get(lastJob);
+    }
+
+    /**
+     * Set the {@code lastJob} property.
+     *
+     * @see #lastJob
+     */
+    public void setLastJob(BOrd v) {
+        set(lastJob, v, null);
+    }
+
+////////////////////////////////////////////////////////////////
+// Property "lastResult"
+////////////////////////////////////////////////////////////////
+
+    /**
+     * Slot for the {@code lastResult} property.
+     *
+     * @see #getLastResult
+     * @see #setLastResult
+     */
+    public static final Property lastResult = newProperty(Flags.READONLY | Flags.TRANSIENT, "", null);
+
+    /**
+     * Get the {@code lastResult} property.
+     *
+     * @see #lastResult
+     */
+    public String getLastResult() {
+        return getString(lastResult);
+    }
+
+    /**
+     * Set the {@code lastResult} property.
+     *
+     * @see #lastResult
+     */
+    public void setLastResult(String v) {
+        setString(lastResult, v, null);
+    }
+
+////////////////////////////////////////////////////////////////
+// Action "execute"
+////////////////////////////////////////////////////////////////
+
+    /**
+     * Slot for the {@code execute} action.
+     *
+     * @see #execute()
+     */
+    public static final Action execute = newAction(0, null);
+
+    /**
+     * Invoke the {@code execute} action.
+     *
+     * @see #execute
+     */
+    public void execute() {
+        invoke(execute, null, null);
+    }
+
+////////////////////////////////////////////////////////////////
+// Action "dryRun"
+////////////////////////////////////////////////////////////////
+
+    /**
+     * Slot for the {@code dryRun} action.
+     *
+     * @see #dryRun()
+     */
+    public static final Action dryRun = newAction(0, null);
+
+    /**
+     * Invoke the {@code dryRun} action.
+     *
+     * @see #dryRun
+     */
+    public void dryRun() {
+        invoke(dryRun, null, null);
+    }
+
+////////////////////////////////////////////////////////////////
+// Type
+////////////////////////////////////////////////////////////////
+    public Type getType() {
+        return TYPE;
+    }
+
+    public static final Type TYPE = Sys.loadType(BLinkTask.class);
+
+    /*+ ------------ END BAJA AUTO GENERATED CODE -------------- +*/
+}
@@ -0,0 +1,542 @@
+/*
+ Licensed to the Apache Software Foundation (ASF) under one
+ or more contributor license agreements.  See the NOTICE file
+ distributed with this work for additional information
+ regarding copyright ownership.  The ASF licenses this file
+ to you under the Apache License, Version 2.0 (the
+ "License"); you may not use this file except in compliance
+ with the License.  You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing,
+ software distributed under the License is distributed on an
+ "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ KIND, either express or implied.  See the License for the
+ specific language governing permissions and limitations
+ under the License.
+ */
+package com.raxware.linkster;
+
+import com.raxware.linkster.engine.LinkMetrics;
+import com.raxware.linkster.engine.LinkSummary;
+
+import javax.baja.nre.annotations.NiagaraProperty;
+import javax.baja.nre.annotations.NiagaraType;
+import javax.baja.sys.BComponent;
+import javax.baja.sys.Flags;
+import javax.baja.sys.Property;
+import javax.baja.sys.Sys;
+import javax.baja.sys.Type;
+
+/**
+ * What the LinksterService has done since the station started, kept as
+ * read-only properties so history and alarm extensions can watch them like
+ * any other value.
+ * <p>
+ * Totals cover every link job.  The <code>lastJob</code> properties describe
+ * the most recent one.  Each phase of linking a row (expanding it, resolving
+ * its components, checkLink, makeLink and adding the link) has its own
+ * latency figures.
+ * <p>
+ * Jobs finish on their own threads, so every update goes through one of
+ * the synchronized methods here, and no total is read and set again by two
+ * jobs at once.
+ *
+ * @author Will Chapman
+ */
+
+@NiagaraType
+@NiagaraProperty(
+        name = "jobs",
+        type = "long",
+        defaultValue = "0L",
+        flags = Flags.READONLY | Flags.TRANSIENT
+)
+@NiagaraProperty(
+        name = "linksCreated",
+        type = "long",
+        defaultValue = "0L",
+        flags = Flags.READONLY | Flags.TRANSIENT
+)
+@NiagaraProperty(
+        name = "linksFailed",
+        type = "long",
+        defaultValue = "0L",
+        flags = Flags.READONLY | Flags.TRANSIENT
+)
+@NiagaraProperty(
+        name = "linksSkipped",
+        type = "long",
+        defaultValue = "0L",
+        flags = Flags.READONLY | Flags.TRANSIENT
+)
+@NiagaraProperty(
+        name = "lastJobRows",
+        type = "long",
+        defaultValue = "0L",
+        flags = Flags.READONLY | Flags.TRANSIENT
+)
+@NiagaraProperty(
+        name = "lastJobMillis",
+        type = "long",
+        defaultValue = "0L",
+        flags = Flags.READONLY | Flags.TRANSIENT
+)
+@NiagaraProperty(
+        name = "lastJobRowsPerSecond",
+        type = "double",
+        defaultValue = "0.0",
+        flags = Flags.READONLY | Flags.TRANSIENT
+)
+@NiagaraProperty(
+        name = "expandTime",
+        type = "BPhaseStats",
+        defaultValue = "new BPhaseStats()",
+        flags = Flags.READONLY | Flags.TRANSIENT
+)
+@NiagaraProperty(
+        name = "resolveTime",
+        type = "BPhaseStats",
+        defaultValue = "new BPhaseStats()",
+        flags = Flags.READONLY | Flags.TRANSIENT
+)
+@NiagaraProperty(
+        name = "checkLinkTime",
+        type = "BPhaseStats",
+        defaultValue = "new BPhaseStats()",
+        flags = Flags.READONLY | Flags.TRANSIENT
+)
+@NiagaraProperty(
+        name = "makeLinkTime",
+        type = "BPhaseStats",
+        defaultValue = "new BPhaseStats()",
+        flags = Flags.READONLY | Flags.TRANSIENT
+)
+@NiagaraProperty(
+        name = "addTime",
+        type = "BPhaseStats",
+        defaultValue = "new BPhaseStats()",
+        flags = Flags.READONLY | Flags.TRANSIENT
+)
+public class BLinksterMetrics extends BComponent {
+
+    /**
+     * Adds a finished job to the totals and refreshes the latency figures.
+     *
+     * @param summary what the job did
+     * @param phases  the latency histograms the job recorded into
+     */
+    public synchronized void jobDone(LinkSummary summary, LinkMetrics phases) {
+        setJobs(getJobs() + 1);
+        setLinksCreated(getLinksCreated() + summary.getCreated());
+        setLinksFailed(getLinksFailed() + summary.getInvalid() + summary.getUnresolved() + summary.getFailed());
+        setLinksSkipped(getLinksSkipped() + summary.getPresent());
+
+        long elapsed = summary.getElapsedMillis();
+        setLastJobRows(summary.getRows());
+        setLastJobMillis(elapsed);
+        setLastJobRowsPerSecond(elapsed > 0 ? summary.getRows() * 1000.0 / elapsed : 0);
+        updatePhases(phases);
+    }
+
+    /**
+     * @param phases the latency histograms to copy from
+     */
+    public synchronized void updatePhases(LinkMetrics phases) {
+        getExpandTime().update(phases.expand);
+        getResolveTime().update(phases.resolve);
+        getCheckLinkTime().update(phases.checkLink);
+        getMakeLinkTime().update(phases.makeLink);
+        getAddTime().update(phases.add);
+    }
+
+    /**
+     * Zeroes the totals; the latency figures follow the histograms.
+     */
+    public synchronized void reset() {
+        setJobs(0);
+        setLinksCreated(0);
+        setLinksFailed(0);
+        setLinksSkipped(0);
+        setLastJobRows(0);
+        setLastJobMillis(0);
+        setLastJobRowsPerSecond(0);
+    }
+
+
+    /*+ ------------ BEGIN BAJA AUTO GENERATED CODE ------------ +*/
+    /*@ $com.raxware.linkster.BLinksterMetrics(1475893254)1.0$ @*/
+    /* Generated Sat Oct 17 20:12:50 EDT 2026 by Slot-o-Matic (c) Tridium, Inc. 2012 */
+
+////////////////////////////////////////////////////////////////
+// Property "jobs"
+////////////////////////////////////////////////////////////////
+
+    /**
+     * Slot for the {@code jobs} property.
+     *
+     * @see #getJobs
+     * @see #setJobs
+     */
+    public static final Property jobs = newProperty(Flags.READONLY | Flags.TRANSIENT, 0L, null);
+
+    /**
+     * Get the {@code jobs} property.
+     *
+     * @see #jobs
+     */
+    public long getJobs() {
+        return getLong(jobs);
+    }
+
+    /**
+     * Set the {@code jobs} property.
+     *
+     * @see #jobs
+     */
+    public void setJobs(long v) {
+        setLong(jobs, v, null);
+    }
+
+////////////////////////////////////////////////////////////////
+// Property "linksCreated"
+////////////////////////////////////////////////////////////////
+
+    /**
+     * Slot for the {@code linksCreated} property.
+     *
+     * @see #getLinksCreated
+     * @see #setLinksCreated
+     */
+    public static final Property linksCreated = newProperty(Flags.READONLY | Flags.TRANSIENT, 0L, null);
+
+    /**
+     * Get the {@code linksCreated} property.
+     *
+     * @see #linksCreated
+     */
+    public long getLinksCreated() {
+        return getLong(linksCreated);
+    }
+
+    /**
+     * Set the {@code linksCreated} property.
+     *
+     * @see #linksCreated
+     */
+    public void setLinksCreated(long v) {
+        setLong(linksCreated, v, null);
+    }
+
+////////////////////////////////////////////////////////////////
+// Property "linksFailed"
+////////////////////////////////////////////////////////////////
+
+    /**
+     * Slot for the {@code linksFailed} property.
+     *
+     * @see #getLinksFailed
+     * @see #setLinksFailed
+     */
+    public static final Property linksFailed = newProperty(Flags.READONLY | Flags.TRANSIENT, 0L, null);
+
+    /**
+     * Get the {@code linksFailed} property.
+     *
+     * @see #linksFailed
+     */
+    public long getLinksFailed() {
+        return getLong(linksFailed);
+    }
+
+    /**
+     * Set the {@code linksFailed} property.
+     *
+     * @see #linksFailed
+     */
+    public void setLinksFailed(long v) {
+        setLong(linksFailed, v, null);
+    }
+
+////////////////////////////////////////////////////////////////
+// Property "linksSkipped"
+////////////////////////////////////////////////////////////////
+
+    /**
+     * Slot for the {@code linksSkipped} property.
+     *
+     * @see #getLinksSkipped
+     * @see #setLinksSkipped
+     */
+    public static final Property linksSkipped = newProperty(Flags.READONLY | Flags.TRANSIENT, 0L, null);
+
+    /**
+     * Get the {@code linksSkipped} property.
+     *
+     * @see #linksSkipped
+     */
+    public long getLinksSkipped() {
+        return getLong(linksSkipped);
+    }
+
+    /**
+     * Set the {@code linksSkipped} property.
+     *
+     * @see #linksSkipped
+     */
+    public void setLinksSkipped(long v) {
+        setLong(linksSkipped, v, null);
+    }
+
+////////////////////////////////////////////////////////////////
+// Property "lastJobRows"
+////////////////////////////////////////////////////////////////
+
+    /**
+     * Slot for the {@code lastJobRows} property.
+     *
+     * @see #getLastJobRows
+     * @see #setLastJobRows
+     */
+    public static final Property lastJobRows = newProperty(Flags.READONLY | Flags.TRANSIENT, 0L, null);
+
+    /**
+     * Get the {@code lastJobRows} property.
+     *
+     * @see #lastJobRows
+     */
+    public long getLastJobRows() {
+        return getLong(lastJobRows);
+    }
+
+    /**
+     * Set the {@code lastJobRows} property.
+     *
+     * @see #lastJobRows
+     */
+    public void setLastJobRows(long v) {
+        setLong(lastJobRows, v, null);
+    }
+
+////////////////////////////////////////////////////////////////
+// Property "lastJobMillis"
+////////////////////////////////////////////////////////////////
+
+    /**
+     * Slot for the {@code lastJobMillis} property.
+     *
+     * @see #getLastJobMillis
+     * @see #setLastJobMillis
+     */
+    public static final Property lastJobMillis = newProperty(Flags.READONLY | Flags.TRANSIENT, 0L, null);
+
+    /**
+     * Get the {@code lastJobMillis} property.
+     *
+     * @see #lastJobMillis
+     */
+    public long getLastJobMillis() {
+        return getLong(lastJobMillis);
+    }
+
+    /**
+     * Set the {@code lastJobMillis} property.
+     *
+     * @see #lastJobMillis
+     */
+    public void setLastJobMillis(long v) {
+        setLong(lastJobMillis, v, null);
+    }
+
+////////////////////////////////////////////////////////////////
+// Property "lastJobRowsPerSecond"
+////////////////////////////////////////////////////////////////
+
+    /**
+     * Slot for the {@code lastJobRowsPerSecond} property.
+     *
+     * @see #getLastJobRowsPerSecond
+     * @see #setLastJobRowsPerSecond
+     */
+    public static final Property lastJobRowsPerSecond = newProperty(Flags.READONLY | Flags.TRANSIENT, 0.0, null);
+
+    /**
+     * Get the {@code lastJobRowsPerSecond} property.
+     *
+     * @see #lastJobRowsPerSecond
+     */
+    public double getLastJobRowsPerSecond() {
+        return getDouble(lastJobRowsPerSecond);
+    }
+
+    /**
+     * Set the {@code lastJobRowsPerSecond} property.
+     *
+     * @see #lastJobRowsPerSecond
+     */
+    public void setLastJobRowsPerSecond(double v) {
+        setDouble(lastJobRowsPerSecond, v, null);
+    }
+
+////////////////////////////////////////////////////////////////
+// Property "expandTime"
+////////////////////////////////////////////////////////////////
+
+    /**
+     * Slot for the {@code expandTime} property.
+     *
+     * @see #getExpandTime
+     * @see #setExpandTime
+     */
+    public static final Property expandTime = newProperty(Flags.READONLY | Flags.TRANSIENT, new BPhaseStats(), null);
+
+    /**
+     * Get the {@code expandTime} property.
+     *
+     * @see #expandTime
+     */
+    public BPhaseStats getExpandTime() {
+        return (BPhaseStats) get(expandTime);
+    }
+
+    /**
+     * Set the {@code expandTime} property.
+     *
+     * @see #expandTime
+     */
+    public void setExpandTime(BPhaseStats v) {
+        set(expandTime, v, null);
+    }
+
+////////////////////////////////////////////////////////////////
+// Property "resolveTime"
+////////////////////////////////////////////////////////////////
+
+    /**
+     * Slot for the {@code resolveTime} property.
+     *
+     * @see #getResolveTime
+     * @see #setResolveTime
+     */
+    public static final Property resolveTime = newProperty(Flags.READONLY | Flags.TRANSIENT, new BPhaseStats(), null);
+
+    /**
+     * Get the {@code resolveTime} property.
+     *
+     * @see #resolveTime
+     */
+    public BPhaseStats getResolveTime() {
+        return (BPhaseStats) get(resolveTime);
+    }
+
+    /**
+     * Set the {@code resolveTime} property.
+     *
+     * @see #resolveTime
+     */
+    public void setResolveTime(BPhaseStats v) {
+        set(resolveTime, v, null);
+    }
+
+////////////////////////////////////////////////////////////////
+// Property "checkLinkTime"
+////////////////////////////////////////////////////////////////
+
+    /**
+     * Slot for the {@code checkLinkTime} property.
+     *
+     * @see #getCheckLinkTime
+     * @see #setCheckLinkTime
+     */
+    public static final Property checkLinkTime = newProperty(Flags.READONLY | Flags.TRANSIENT, new BPhaseStats(), null);
+
+    /**
+     * Get the {@code checkLinkTime} property.
+     *
+     * @see #checkLinkTime
+     */
+    public BPhaseStats getCheckLinkTime() {
+        return (BPhaseStats) get(checkLinkTime);
+    }
+
+    /**
+     * Set the {@code checkLinkTime} property.
+     *
+     * @see #checkLinkTime
+     */
+    public void setCheckLinkTime(BPhaseStats v) {
+        set(checkLinkTime, v, null);
+    }
+
+////////////////////////////////////////////////////////////////
+// Property "makeLinkTime"
+////////////////////////////////////////////////////////////////
+
+    /**
+     * Slot for the {@code makeLinkTime} property.
+     *
+     * @see #getMakeLinkTime
+     * @see #setMakeLinkTime
+     */
+    public static final Property makeLinkTime = newProperty(Flags.READONLY | Flags.TRANSIENT, new BPhaseStats(), null);
+
+    /**
+     * Get the {@code makeLinkTime} property.
+     *
+     * @see #makeLinkTime
+     */
+    public BPhaseStats getMakeLinkTime() {
+        return (BPhaseStats) get(makeLinkTime);
+    }
+
+    /**
+     * Set the {@code makeLinkTime} property.
+     *
+     * @see #makeLinkTime
+     */
+    public void setMakeLinkTime(BPhaseStats v) {
+        set(makeLinkTime, v, null);
+    }
+
+////////////////////////////////////////////////////////////////
+// Property "addTime"
+////////////////////////////////////////////////////////////////
+
+    /**
+     * Slot for the {@code addTime} property.
+     *
+     * @see #getAddTime
+     * @see #setAddTime
+     */
+    public static final Property addTime = newProperty(Flags.READONLY | Flags.TRANSIENT, new BPhaseStats(), null);
+
+    /**
+     * Get the {@code addTime} property.
+     *
+     * @see #addTime
+     */
+    public BPhaseStats getAddTime() {
+        return (BPhaseStats) get(addTime);
+    }
+
+    /**
+     * Set the {@code addTime} property.
+     *
+     * @see #addTime
+     */
+    public void setAddTime(BPhaseStats v) {
+        set(addTime, v, null);
+    }
+
+////////////////////////////////////////////////////////////////
+// Type
+////////////////////////////////////////////////////////////////
+    public Type getType() {
+        return TYPE;
+    }
+
+    public static final Type TYPE = Sys.loadType(BLinksterMetrics.class);
+
+    /*+ ------------ END BAJA AUTO GENERATED CODE -------------- +*/
+}
@@ -18,22 +18,144 @@
  */
 package com.raxware.linkster;
 
+import com.raxware.linkster.engine.DryRun;
+import com.raxware.linkster.engine.DryRunReport;
+import com.raxware.linkster.engine.LinkEngine;
+import com.raxware.linkster.engine.LinkMetrics;
+import com.raxware.linkster.engine.LinkMonitor;
+import com.raxware.linkster.engine.LinkSummary;
+import com.raxware.linkster.engine.PlanAnalyzer;
+import com.raxware.linkster.engine.ResolvedPlan;
+import com.raxware.linkster.engine.RowPairing;
+import com.raxware.linkster.planfile.PlanFileReader;
+import com.raxware.linkster.qglobber.CompiledTemplate;
+import com.raxware.linkster.qglobber.Globber;
+import com.raxware.linkster.qglobber.TemplateCache;
+
+import javax.baja.file.BFileSystem;
+import javax.baja.file.BIFile;
+import javax.baja.job.BJobService;
+import javax.baja.naming.BOrd;
+import javax.baja.nre.annotations.NiagaraAction;
+import javax.baja.nre.annotations.NiagaraProperty;
 import javax.baja.nre.annotations.NiagaraType;
+import javax.baja.sys.Action;
 import javax.baja.sys.BAbstractService;
 import javax.baja.sys.BIcon;
+import javax.baja.sys.BObject;
+import javax.baja.sys.BString;
+import javax.baja.sys.Context;
+import javax.baja.sys.Flags;
+import javax.baja.sys.Property;
 import javax.baja.sys.Sys;
 import javax.baja.sys.Type;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * A service that goes in the Services container and provides a means of automating
  * a many-to-many link creation.
+ * <p>
+ * The service also hosts a cache of compiled templates so that compiling the
+ * same template and ranges again (or copying them to the other side) does not
+ * redo the work.
+ * <p>
+ * Dry runs check a plan on up to <code>dryRunThreads</code> threads at once.
+ * <p>
+ * What the service has linked, and how long each phase took, is published
+ * under <code>metrics</code>.
  *
  * @author Will Chapman
  */
 
 @NiagaraType
+@NiagaraProperty(
+        name = "cacheMaxEntries",
+        type = "int",
+        defaultValue = "32"
+)
+@NiagaraProperty(
+        name = "cacheHits",
+        type = "long",
+        defaultValue = "0L",
+        flags = Flags.READONLY | Flags.TRANSIENT
+)
+@NiagaraProperty(
+        name = "cacheMisses",
+        type = "long",
+        defaultValue = "0L",
+        flags = Flags.READONLY | Flags.TRANSIENT
+)
+@NiagaraProperty(
+        name = "cacheEntries",
+        type = "int",
+        defaultValue = "0",
+        flags = Flags.READONLY | Flags.TRANSIENT
+)
+@NiagaraProperty(
+        name = "dryRunThreads",
+        type = "int",
+        defaultValue = "4"
+)
+@NiagaraProperty(
+        name = "metrics",
+        type = "BLinksterMetrics",
+        defaultValue = "new BLinksterMetrics()",
+        flags = Flags.READONLY | Flags.TRANSIENT
+)
+@NiagaraAction(
+        name = "analyzePlan",
+        parameterType = "BLinkPlan",
+        defaultValue = "new BLinkPlan()",
+        returnType = "BString"
+)
+@NiagaraAction(
+        name = "linkPlan",
+        parameterType = "BLinkPlan",
+        defaultValue = "new BLinkPlan()",
+        returnType = "BString"
+)
+@NiagaraAction(
+        name = "dryRunPlan",
+        parameterType = "BLinkPlan",
+        defaultValue = "new BLinkPlan()",
+        returnType = "BString"
+)
+@NiagaraAction(
+        name = "submitAnalyzeJob",
+        parameterType = "BLinkPlan",
+        defaultValue = "new BLinkPlan()",
+        returnType = "BOrd"
+)
+@NiagaraAction(
+        name = "submitLinkJob",
+        parameterType = "BLinkPlan",
+        defaultValue = "new BLinkPlan()",
+        returnType = "BOrd"
+)
+@NiagaraAction(
+        name = "submitDryRunJob",
+        parameterType = "BLinkPlan",
+        defaultValue = "new BLinkPlan()",
+        returnType = "BOrd"
+)
+@NiagaraAction(
+        name = "resetMetrics"
+)
 public class BLinksterService extends BAbstractService {
 
+    // starts out with the property default, started() applies the configured limit
+    private final TemplateCache cache = new TemplateCache(32);
+
+    // how long each phase of linking takes, across every job
+    private final LinkMetrics phases = new LinkMetrics();
+
+    // the last plan each user analyzed, waiting for the link that usually follows
+    private final Map<String, ResolvedPlan> analyzed = new HashMap<String, ResolvedPlan>();
+
     public Type[] getServiceTypes() {
         return new Type[]{getType()};
     }
@@ -42,10 +164,609 @@ public class BLinksterService extends BAbstractService {
         return BIcon.std("link.png");
     }
 
+    public void started() throws Exception {
+        super.started();
+        cache.setMaxEntries(getCacheMaxEntries());
+    }
+
+    public void changed(Property p, Context cx) {
+        super.changed(p, cx);
+        if (!isRunning()) {
+            return;
+        }
+        if (p == cacheMaxEntries) {
+            cache.setMaxEntries(getCacheMaxEntries());
+            updateCacheStats();
+        }
+    }
+
+    /**
+     * Compiles a template and its ranges, reusing an earlier compile of the
+     * same pair if it is still cached.
+     *
+     * @param template the template
+     * @param ranges   the sequences, one per placeholder
+     * @return the compiled template
+     */
+    public CompiledTemplate compile(String template, String[] ranges) {
+        CompiledTemplate compiled = cache.compile(template, ranges);
+        updateCacheStats();
+        return compiled;
+    }
+
+    /**
+     * Checks that a plan can be linked, resolving every component on both
+     * sides.  The handles of those components are kept so that linking the
+     * same plan next does not have to resolve anything again.
+     *
+     * @param plan the templates, ranges and slots for both sides
+     * @param cx   the context of the user invoking the action
+     * @return the analysis report
+     */
+    public BString doAnalyzePlan(BLinkPlan plan, Context cx) {
+        return BString.make(analyze(plan, cx, LinkMonitor.NONE));
+    }
+
+    /**
+     * Expands, resolves, checks and links a whole plan right here in the
+     * station, so Workbench makes one call instead of several per row.  If
+     * the same user just analyzed the plan, components are found by the
+     * handles the analysis recorded instead of by path.
+     *
+     * @param plan the templates, ranges and slots for both sides
+     * @param cx   the context of the user invoking the action
+     * @return a summary of what was linked and what went wrong
+     */
+    public BString doLinkPlan(BLinkPlan plan, Context cx) {
+        return BString.make(link(plan, cx, LinkMonitor.NONE).toString());
+    }
+
+    /**
+     * Submits a job that analyzes the plan in the background.
+     *
+     * @param plan the templates, ranges and slots for both sides
+     * @param cx   the context of the user invoking the action
+     * @return the ord of the submitted job
+     */
+    public BOrd doSubmitAnalyzeJob(BLinkPlan plan, Context cx) {
+        return BJobService.getService().submit(new BLinkJob(this, plan, true), cx);
+    }
+
+    /**
+     * Submits a job that links the plan in the background.
+     *
+     * @param plan the templates, ranges and slots for both sides
+     * @param cx   the context of the user invoking the action
+     * @return the ord of the submitted job
+     */
+    public BOrd doSubmitLinkJob(BLinkPlan plan, Context cx) {
+        return BJobService.getService().submit(new BLinkJob(this, plan, false), cx);
+    }
+
+    /**
+     * Checks every pair of the plan the way linking would, without linking
+     * anything, and reports the problems found grouped by kind.
+     *
+     * @param plan the templates, ranges and slots for both sides
+     * @param cx   the context of the user invoking the action
+     * @return the dry run report
+     */
+    public BString doDryRunPlan(BLinkPlan plan, Context cx) {
+        return BString.make(dryRun(plan, cx, LinkMonitor.NONE).toString());
+    }
+
+    /**
+     * Submits a job that dry runs the plan in the background.
+     *
+     * @param plan the templates, ranges and slots for both sides
+     * @param cx   the context of the user invoking the action
+     * @return the ord of the submitted job
+     */
+    public BOrd doSubmitDryRunJob(BLinkPlan plan, Context cx) {
+        BLinkJob job = new BLinkJob(this, plan, true);
+        job.setDryRun(true);
+        return BJobService.getService().submit(job, cx);
+    }
+
+    /**
+     * Dry runs a plan on up to <code>dryRunThreads</code> threads, see {@link #doDryRunPlan}.
+     *
+     * @param plan    the templates, ranges and slots for both sides
+     * @param cx      the context of the user the dry run is for
+     * @param monitor told how far along the dry run is, and asked whether to stop
+     * @return what was found
+     */
+    public DryRunReport dryRun(BLinkPlan plan, Context cx, LinkMonitor monitor) {
+        checkTemplates(plan);
+        CompiledTemplate from = compile(plan.getFromPattern(), Globber.splitRanges(plan.getFromRange()));
+        CompiledTemplate to = compile(plan.getToPattern(), Globber.splitRanges(plan.getToRange()));
+
+        DryRun dryRun = new DryRun(this, cx, getDryRunThreads());
+        dryRun.setMonitor(monitor);
+        dryRun.setSlotPairs(plan.getSlotPairs());
+        return dryRun.run(RowPairing.make(from, to, plan.getJoin()));
+    }
+
+    /**
+     * Analyzes a plan, see {@link #doAnalyzePlan}.
+     *
+     * @param plan    the templates, ranges and slots for both sides
+     * @param cx      the context of the user the analysis runs for
+     * @param monitor told how far along the analysis is, and asked whether to stop
+     * @return the analysis report
+     * @throws java.util.concurrent.CancellationException if the monitor asked to stop
+     */
+    public String analyze(BLinkPlan plan, Context cx, LinkMonitor monitor) {
+        setAnalyzed(cx, null);
+        checkTemplates(plan);
+        CompiledTemplate from = compile(plan.getFromPattern(), Globber.splitRanges(plan.getFromRange()));
+        CompiledTemplate to = compile(plan.getToPattern(), Globber.splitRanges(plan.getToRange()));
+
+        StringBuilder report = new StringBuilder();
+        PlanAnalyzer analyzer = new PlanAnalyzer(this, cx);
+        analyzer.setMonitor(monitor);
+        analyzer.setSlotPairs(plan.getSlotPairs());
+        ResolvedPlan resolved = analyzer.analyze(plan.getKey(), RowPairing.make(from, to, plan.getJoin()), report);
+        setAnalyzed(cx, resolved);
+        return report.toString();
+    }
+
+    /**
+     * Links a plan, see {@link #doLinkPlan}.  A canceled link stops at the
+     * end of the current batch and keeps the links already made.
+     *
+     * @param plan    the templates, ranges and slots for both sides
+     * @param cx      the context of the user the link runs for
+     * @param monitor told how far along the link is, and asked whether to stop
+     * @return a summary of what was linked and what went wrong
+     */
+    public LinkSummary link(BLinkPlan plan, Context cx, LinkMonitor monitor) {
+        ResolvedPlan resolved = takeAnalyzed(plan.getKey(), cx);
+        LinkEngine engine = new LinkEngine(this, cx);
+        engine.setMonitor(monitor);
+        engine.setMetrics(phases);
+        engine.setSlotPairs(plan.getSlotPairs());
+        if (plan.getReconcile()) {
+            engine.setReconcile(plan.getRemoveStale());
+        }
+
+        LinkSummary summary;
+        if (plan.isFilePlan()) {
+            summary = linkFile(engine, plan.getPlanFile(), cx);
+        } else if (resolved != null) {
+            summary = engine.run(resolved);
+        } else {
+            CompiledTemplate from = compile(plan.getFromPattern(), Globber.splitRanges(plan.getFromRange()));
+            CompiledTemplate to = compile(plan.getToPattern(), Globber.splitRanges(plan.getToRange()));
+            summary = engine.run(RowPairing.make(from, to, plan.getJoin()));
+        }
+        if (isRunning()) {
+            getMetrics().jobDone(summary, phases);
+        }
+        return summary;
+    }
+
+    /**
+     * Links every record of a plan file, streaming it from disk.
+     *
+     * @param engine set up for the job
+     * @param ord    the plan file, resolved against the station
+     * @param cx     the context of the user the link runs for
+     * @return what happened
+     * @throws IllegalArgumentException if the ord is not a file on the station's disk
+     * @throws IllegalStateException    if the file can not be read or is corrupt
+     */
+    private LinkSummary linkFile(LinkEngine engine, BOrd ord, Context cx) {
+        BObject target = ord.get(this, cx);
+        File file = null;
+        if (target instanceof BIFile) {
+            file = BFileSystem.INSTANCE.pathToLocalFile(((BIFile) target).getFilePath());
+        }
+        if (file == null) {
+            throw new IllegalArgumentException("Not a local file: " + ord);
+        }
+
+        try (PlanFileReader reader = new PlanFileReader(file.toPath())) {
+            return engine.run(reader);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to read " + ord + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if the plan names a plan file, which can only be linked
+     */
+    private static void checkTemplates(BLinkPlan plan) {
+        if (plan.isFilePlan()) {
+            throw new IllegalArgumentException("Plan files are linked as they are, only template plans can be checked first");
+        }
+    }
+
+    /**
+     * Zeroes the metrics.
+     */
+    public void doResetMetrics() {
+        phases.reset();
+        getMetrics().reset();
+        getMetrics().updatePhases(phases);
+    }
+
+    /**
+     * Keeps the plan the user just analyzed.  Nothing is kept when there is
+     * no user, so a plan is only ever linked by the user who analyzed it.
+     *
+     * @param cx       the context of the user the analysis ran for
+     * @param resolved the analyzed plan, or null to forget the last one
+     */
+    private synchronized void setAnalyzed(Context cx, ResolvedPlan resolved) {
+        String user = userOf(cx);
+        if (user == null) {
+            return;
+        }
+        if (resolved == null) {
+            analyzed.remove(user);
+        } else {
+            analyzed.put(user, resolved);
+        }
+    }
+
+    /**
+     * Hands over the plan the same user analyzed if it is for the same
+     * templates and ranges, and forgets it either way so it is only used once.
+     *
+     * @param key the key of the plan about to be linked
+     * @param cx  the context of the user the link runs for
+     * @return the analyzed plan, or null if there is not a matching one
+     */
+    private synchronized ResolvedPlan takeAnalyzed(String key, Context cx) {
+        String user = userOf(cx);
+        ResolvedPlan resolved = user == null ? null : analyzed.remove(user);
+        return resolved != null && resolved.getKey().equals(key) ? resolved : null;
+    }
+
+    private static String userOf(Context cx) {
+        return cx == null || cx.getUser() == null ? null : cx.getUser().getUsername();
+    }
+
+    /**
+     * Publishes the cache counters.  Only done in the station; a Workbench
+     * proxy of the service keeps its own cache and leaves the station's
+     * counters alone.
+     */
+    private void updateCacheStats() {
+        if (!isRunning()) {
+            return;
+        }
+        setCacheHits(cache.getHits());
+        setCacheMisses(cache.getMisses());
+        setCacheEntries(cache.getEntryCount());
+    }
+
 
     /*+ ------------ BEGIN BAJA AUTO GENERATED CODE ------------ +*/
     /*@ $com.raxware.linkster.BLinksterService(1239832666)1.0$ @*/
     /* Generated Sun Jul 27 20:12:50 EDT 2008 by Slot-o-Matic 2000 (c) Tridium, Inc. 2000 */
+
+////////////////////////////////////////////////////////////////
+// Property "cacheMaxEntries"
+////////////////////////////////////////////////////////////////
+
+    /**
+     * Slot for the {@code cacheMaxEntries} property.
+     *
+     * @see #getCacheMaxEntries
+     * @see #setCacheMaxEntries
+     */
+    public static final Property cacheMaxEntries = newProperty(0, 32, null);
+
+    /**
+     * Get the {@code cacheMaxEntries} property.
+     *
+     * @see #cacheMaxEntries
+     */
+    public int getCacheMaxEntries() {
+        return getInt(cacheMaxEntries);
+    }
+
+    /**
+     * Set the {@code cacheMaxEntries} property.
+     *
+     * @see #cacheMaxEntries
+     */
+    public void setCacheMaxEntries(int v) {
+        setInt(cacheMaxEntries, v, null);
+    }
+
+////////////////////////////////////////////////////////////////
+// Property "cacheHits"
+////////////////////////////////////////////////////////////////
+
+    /**
+     * Slot for the {@code cacheHits} property.
+     *
+     * @see #getCacheHits
+     * @see #setCacheHits
+     */
+    public static final Property cacheHits = newProperty(Flags.READONLY | Flags.TRANSIENT, 0L, null);
+
+    /**
+     * Get the {@code cacheHits} property.
+     *
+     * @see #cacheHits
+     */
+    public long getCacheHits() {
+        return getLong(cacheHits);
+    }
+
+    /**
+     * Set the {@code cacheHits} property.
+     *
+     * @see #cacheHits
+     */
+    public void setCacheHits(long v) {
+        setLong(cacheHits, v, null);
+    }
+
+////////////////////////////////////////////////////////////////
+// Property "cacheMisses"
+////////////////////////////////////////////////////////////////
+
+    /**
+     * Slot for the {@code cacheMisses} property.
+     *
+     * @see #getCacheMisses
+     * @see #setCacheMisses
+     */
+    public static final Property cacheMisses = newProperty(Flags.READONLY | Flags.TRANSIENT, 0L, null);
+
+    /**
+     * Get the {@code cacheMisses} property.
+     *
+     * @see #cacheMisses
+     */
+    public long getCacheMisses() {
+        return getLong(cacheMisses);
+    }
+
+    /**
+     * Set the {@code cacheMisses} property.
+     *
+     * @see #cacheMisses
+     */
+    public void setCacheMisses(long v) {
+        setLong(cacheMisses, v, null);
+    }
+
+////////////////////////////////////////////////////////////////
+// Property "cacheEntries"
+////////////////////////////////////////////////////////////////
+
+    /**
+     * Slot for the {@code cacheEntries} property.
+     *
+     * @see #getCacheEntries
+     * @see #setCacheEntries
+     */
+    public static final Property cacheEntries = newProperty(Flags.READONLY | Flags.TRANSIENT, 0, null);
+
+    /**
+     * Get the {@code cacheEntries} property.
+     *
+     * @see #cacheEntries
+     */
+    public int getCacheEntries() {
+        return getInt(cacheEntries);
+    }
+
+    /**
+     * Set the {@code cacheEntries} property.
+     *
+     * @see #cacheEntries
+     */
+    public void setCacheEntries(int v) {
+        setInt(cacheEntries, v, null);
+    }
+
+////////////////////////////////////////////////////////////////
+// Property "dryRunThreads"
+////////////////////////////////////////////////////////////////
+
+    /**
+     * Slot for the {@code dryRunThreads} property.
+     *
+     * @see #getDryRunThreads
+     * @see #setDryRunThreads
+     */
+    public static final Property dryRunThreads = newProperty(0, 4, null);
+
+    /**
+     * Get the {@code dryRunThreads} property.
+     *
+     * @see #dryRunThreads
+     */
+    public int getDryRunThreads() {
+        return getInt(dryRunThreads);
+    }
+
+    /**
+     * Set the {@code dryRunThreads} property.
+     *
+     * @see #dryRunThreads
+     */
+    public void setDryRunThreads(int v) {
+        setInt(dryRunThreads, v, null);
+    }
+
+////////////////////////////////////////////////////////////////
+// Property "metrics"
+////////////////////////////////////////////////////////////////
+
+    /**
+     * Slot for the {@code metrics} property.
+     *
+     * @see #getMetrics
+     * @see #setMetrics
+     */
+    public static final Property metrics = newProperty(Flags.READONLY | Flags.TRANSIENT, new BLinksterMetrics(), null);
+
+    /**
+     * Get the {@code metrics} property.
+     *
+     * @see #metrics
+     */
+    public BLinksterMetrics getMetrics() {
+        return (BLinksterMetrics) get(metrics);
+    }
+
+    /**
+     * Set the {@code metrics} property.
+     *
+     * @see #metrics
+     */
+    public void setMetrics(BLinksterMetrics v) {
+        set(metrics, v, null);
+    }
+
+////////////////////////////////////////////////////////////////
+// Action "analyzePlan"
+////////////////////////////////////////////////////////////////
+
+    /**
+     * Slot for the {@code analyzePlan} action.
+     *
+     * @see #analyzePlan(BLinkPlan parameter)
+     */
+    public static final Action analyzePlan = newAction(0, new BLinkPlan(), null);
+
+    /**
+     * Invoke the {@code analyzePlan} action.
+     *
+     * @see #analyzePlan
+     */
+    public BString analyzePlan(BLinkPlan parameter) {
+        return (BString) invoke(analyzePlan, parameter, null);
+    }
+
+////////////////////////////////////////////////////////////////
+// Action "linkPlan"
+////////////////////////////////////////////////////////////////
+
+    /**
+     * Slot for the {@code linkPlan} action.
+     *
+     * @see #linkPlan(BLinkPlan parameter)
+     */
+    public static final Action linkPlan = newAction(0, new BLinkPlan(), null);
+
+    /**
+     * Invoke the {@code linkPlan} action.
+     *
+     * @see #linkPlan
+     */
+    public BString linkPlan(BLinkPlan parameter) {
+        return (BString) invoke(linkPlan, parameter, null);
+    }
+
+////////////////////////////////////////////////////////////////
+// Action "dryRunPlan"
+////////////////////////////////////////////////////////////////
+
+    /**
+     * Slot for the {@code dryRunPlan} action.
+     *
+     * @see #dryRunPlan(BLinkPlan parameter)
+     */
+    public static final Action dryRunPlan = newAction(0, new BLinkPlan(), null);
+
+    /**
+     * Invoke the {@code dryRunPlan} action.
+     *
+     * @see #dryRunPlan
+     */
+    public BString dryRunPlan(BLinkPlan parameter) {
+        return (BString) invoke(dryRunPlan, parameter, null);
+    }
+
+////////////////////////////////////////////////////////////////
+// Action "submitAnalyzeJob"
+////////////////////////////////////////////////////////////////
+
+    /**
+     * Slot for the {@code submitAnalyzeJob} action.
+     *
+     * @see #submitAnalyzeJob(BLinkPlan parameter)
+     */
+    public static final Action submitAnalyzeJob = newAction(0, new BLinkPlan(), null);
+
+    /**
+     * Invoke the {@code submitAnalyzeJob} action.
+     *
+     * @see #submitAnalyzeJob
+     */
+    public BOrd submitAnalyzeJob(BLinkPlan parameter) {
+        return (BOrd) invoke(submitAnalyzeJob, parameter, null);
+    }
+
+////////////////////////////////////////////////////////////////
+// Action "submitLinkJob"
+////////////////////////////////////////////////////////////////
+
+    /**
+     * Slot for the {@code submitLinkJob} action.
+     *
+     * @see #submitLinkJob(BLinkPlan parameter)
+     */
+    public static final Action submitLinkJob = newAction(0, new BLinkPlan(), null);
+
+    /**
+     * Invoke the {@code submitLinkJob} action.
+     *
+     * @see #submitLinkJob
+     */
+    public BOrd submitLinkJob(BLinkPlan parameter) {
+        return (BOrd) invoke(submitLinkJob, parameter, null);
+    }
+
+////////////////////////////////////////////////////////////////
+// Action "submitDryRunJob"
+////////////////////////////////////////////////////////////////
+
+    /**
+     * Slot for the {@code submitDryRunJob} action.
+     *
+     * @see #submitDryRunJob(BLinkPlan parameter)
+     */
+    public static final Action submitDryRunJob = newAction(0, new BLinkPlan(), null);
+
+    /**
+     * Invoke the {@code submitDryRunJob} action.
+     *
+     * @see #submitDryRunJob
+     */
+    public BOrd submitDryRunJob(BLinkPlan parameter) {
+        return (BOrd) invoke(submitDryRunJob, parameter, null);
+    }
+
+////////////////////////////////////////////////////////////////
+// Action "resetMetrics"
+////////////////////////////////////////////////////////////////
+
+    /**
+     * Slot for the {@code resetMetrics} action.
+     *
+     * @see #resetMetrics()
+     */
+    public static final Action resetMetrics = newAction(0, null);
+
+    /**
+     * Invoke the {@code resetMetrics} action.
+     *
+     * @see #resetMetrics
+     */
+    public void resetMetrics() {
+        invoke(resetMetrics, null, null);
+    }
+
 ////////////////////////////////////////////////////////////////
 // Type
 ////////////////////////////////////////////////////////////////
@@ -0,0 +1,286 @@
+/*
+ Licensed to the Apache Software Foundation (ASF) under one
+ or more contributor license agreements.  See the NOTICE file
+ distributed with this work for additional information
+ regarding copyright ownership.  The ASF licenses this file
+ to you under the Apache License, Version 2.0 (the
+ "License"); you may not use this file except in compliance
+ with the License.  You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing,
+ software distributed under the License is distributed on an
+ "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ KIND, either express or implied.  See the License for the
+ specific language governing permissions and limitations
+ under the License.
+ */
+package com.raxware.linkster;
+
+import com.raxware.linkster.engine.LatencyHistogram;
+
+import javax.baja.nre.annotations.NiagaraProperty;
+import javax.baja.nre.annotations.NiagaraType;
+import javax.baja.sys.BStruct;
+import javax.baja.sys.Flags;
+import javax.baja.sys.Property;
+import javax.baja.sys.Sys;
+import javax.baja.sys.Type;
+
+/**
+ * How long one phase of linking a row takes: how many times it has run, the
+ * mean, the 50th, 95th and 99th percentiles and the longest, in microseconds.
+ *
+ * @author Will Chapman
+ */
+
+@NiagaraType
+@NiagaraProperty(
+        name = "count",
+        type = "long",
+        defaultValue = "0L",
+        flags = Flags.READONLY
+)
+@NiagaraProperty(
+        name = "meanMicros",
+        type = "double",
+        defaultValue = "0.0",
+        flags = Flags.READONLY
+)
+@NiagaraProperty(
+        name = "p50Micros",
+        type = "double",
+        defaultValue = "0.0",
+        flags = Flags.READONLY
+)
+@NiagaraProperty(
+        name = "p95Micros",
+        type = "double",
+        defaultValue = "0.0",
+        flags = Flags.READONLY
+)
+@NiagaraProperty(
+        name = "p99Micros",
+        type = "double",
+        defaultValue = "0.0",
+        flags = Flags.READONLY
+)
+@NiagaraProperty(
+        name = "maxMicros",
+        type = "double",
+        defaultValue = "0.0",
+        flags = Flags.READONLY
+)
+public final class BPhaseStats extends BStruct {
+
+    /**
+     * Copies the current figures out of a histogram.
+     *
+     * @param h the histogram for this phase
+     */
+    public void update(LatencyHistogram h) {
+        setCount(h.getCount());
+        setMeanMicros(h.getMeanMicros());
+        setP50Micros(h.getPercentileMicros(0.50));
+        setP95Micros(h.getPercentileMicros(0.95));
+        setP99Micros(h.getPercentileMicros(0.99));
+        setMaxMicros(h.getMaxMicros());
+    }
+
+
+    /*+ ------------ BEGIN BAJA AUTO GENERATED CODE ------------ +*/
+    /*@ $com.raxware.linkster.BPhaseStats(3301572415)1.0$ @*/
+    /* Generated Sat Oct 17 20:12:50 EDT 2026 by Slot-o-Matic (c) Tridium, Inc. 2012 */
+
+////////////////////////////////////////////////////////////////
+// Property "count"
+////////////////////////////////////////////////////////////////
+
+    /**
+     * Slot for the {@code count} property.
+     *
+     * @see #getCount
+     * @see #setCount
+     */
+    public static final Property count = newProperty(Flags.READONLY, 0L, null);
+
+    /**
+     * Get the {@code count} property.
+     *
+     * @see #count
+     */
+    public long getCount() {
+        return getLong(count);
+    }
+
+    /**
+     * Set the {@code count} property.
+     *
+     * @see #count
+     */
+    public void setCount(long v) {
+        setLong(count, v, null);
+    }
+
+////////////////////////////////////////////////////////////////
+// Property "meanMicros"
+////////////////////////////////////////////////////////////////
+
+    /**
+     * Slot for the {@code meanMicros} property.
+     *
+     * @see #getMeanMicros
+     * @see #setMeanMicros
+     */
+    public static final Property meanMicros = newProperty(Flags.READONLY, 0.0, null);
+
+    /**
+     * Get the {@code meanMicros} property.
+     *
+     * @see #meanMicros
+     */
+    public double getMeanMicros() {
+        return getDouble(meanMicros);
+    }
+
+    /**
+     * Set the {@code meanMicros} property.
+     *
+     * @see #meanMicros
+     */
+    public void setMeanMicros(double v) {
+        setDouble(meanMicros, v, null);
+    }
+
+////////////////////////////////////////////////////////////////
+// Property "p50Micros"
+////////////////////////////////////////////////////////////////
+
+    /**
+     * Slot for the {@code p50Micros} property.
+     *
+     * @see #getP50Micros
+     * @see #setP50Micros
+     */
+    public static final Property p50Micros = newProperty(Flags.READONLY, 0.0, null);
+
+    /**
+     * Get the {@code p50Micros} property.
+     *
+     * @see #p50Micros
+     */
+    public double getP50Micros() {
+        return getDouble(p50Micros);
+    }
+
+    /**
+     * Set the {@code p50Micros} property.
+     *
+     * @see #p50Micros
+     */
+    public void setP50Micros(double v) {
+        setDouble(p50Micros, v, null);
+    }
+
+////////////////////////////////////////////////////////////////
+// Property "p95Micros"
+////////////////////////////////////////////////////////////////
+
+    /**
+     * Slot for the {@code p95Micros} property.
+     *
+     * @see #getP95Micros
+     * @see #setP95Micros
+     */
+    public static final Property p95Micros = newProperty(Flags.READONLY, 0.0, null);
+
+    /**
+     * Get the {@code p95Micros} property.
+     *
+     * @see #p95Micros
+     */
+    public double getP95Micros() {
+        return getDouble(p95Micros);
+    }
+
+    /**
+     * Set the {@code p95Micros} property.
+     *
+     * @see #p95Micros
+     */
+    public void setP95Micros(double v) {
+        setDouble(p95Micros, v, null);
+    }
+
+////////////////////////////////////////////////////////////////
+// Property "p99Micros"
+////////////////////////////////////////////////////////////////
+
+    /**
+     * Slot for the {@code p99Micros} property.
+     *
+     * @see #getP99Micros
+     * @see #setP99Micros
+     */
+    public static final Property p99Micros = newProperty(Flags.READONLY, 0.0, null);
+
+    /**
+     * Get the {@code p99Micros} property.
+     *
+     * @see #p99Micros
+     */
+    public double getP99Micros() {
+        return getDouble(p99Micros);
+    }
+
+    /**
+     * Set the {@code p99Micros} property.
+     *
+     * @see #p99Micros
+     */
+    public void setP99Micros(double v) {
+        setDouble(p99Micros, v, null);
+    }
+
+////////////////////////////////////////////////////////////////
+// Property "maxMicros"
+////////////////////////////////////////////////////////////////
+
+    /**
+     * Slot for the {@code maxMicros} property.
+     *
+     * @see #getMaxMicros
+     * @see #setMaxMicros
+     */
+    public static final Property maxMicros = newProperty(Flags.READONLY, 0.0, null);
+
+    /**
+     * Get the {@code maxMicros} property.
+     *
+     * @see #maxMicros
+     */
+    public double getMaxMicros() {
+        return getDouble(maxMicros);
+    }
+
+    /**
+     * Set the {@code maxMicros} property.
+     *
+     * @see #maxMicros
+     */
+    public void setMaxMicros(double v) {
+        setDouble(maxMicros, v, null);
+    }
+
+////////////////////////////////////////////////////////////////
+// Type
+////////////////////////////////////////////////////////////////
+    public Type getType() {
+        return TYPE;
+    }
+
+    public static final Type TYPE = Sys.loadType(BPhaseStats.class);
+
+    /*+ ------------ END BAJA AUTO GENERATED CODE -------------- +*/
+}
@@ -0,0 +1,150 @@
+/*
+ Licensed to the Apache Software Foundation (ASF) under one
+ or more contributor license agreements.  See the NOTICE file
+ distributed with this work for additional information
+ regarding copyright ownership.  The ASF licenses this file
+ to you under the Apache License, Version 2.0 (the
+ "License"); you may not use this file except in compliance
+ with the License.  You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing,
+ software distributed under the License is distributed on an
+ "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ KIND, either express or implied.  See the License for the
+ specific language governing permissions and limitations
+ under the License.
+ */
+package com.raxware.linkster.engine;
+
+import javax.baja.naming.BOrd;
+import javax.baja.sys.BComponent;
+import javax.baja.sys.BValue;
+import javax.baja.sys.Context;
+import java.util.HashMap;
+
+/**
+ * Resolves the component ords of a job while walking each shared part of the
+ * path only once.
+ * <p>
+ * Expanded ords share almost all of their path - every VAV on
+ * <code>slot:/Building1/Floor1</code> starts with the same two components.
+ * Resolved components are kept in a prefix tree keyed by slot name, so each
+ * intermediate component is looked up once and every row after that reaches
+ * its component with one child slot lookup per level it does not share.
+ * <p>
+ * Only absolute slot paths (optionally after <code>station:|</code>) go through
+ * the tree.  Anything else is handed to <code>BOrd</code> as before.  The tree
+ * holds on to every component it has seen, so a resolver should live for one
+ * job and then be dropped.
+ *
+ * @author Will Chapman
+ */
+public class ComponentResolver {
+
+    private static final String STATION = "station:|";
+    private static final String SLOT = "slot:/";
+
+    private final BComponent base;
+    private final Context cx;
+    private final Node root;
+    private int walks;
+
+    /**
+     * @param base what ords are resolved against; absolute slot paths start at the root of its space
+     * @param cx   the context of the user running the job
+     */
+    public ComponentResolver(BComponent base, Context cx) {
+        this.base = base;
+        this.cx = cx;
+        this.root = new Node(base.getComponentSpace().getRootComponent());
+    }
+
+    /**
+     * @param ord the ord of a component
+     * @return the component
+     * @throws RuntimeException if the ord does not resolve to a component
+     */
+    public BComponent resolve(String ord) {
+        String path = ord.startsWith(STATION) ? ord.substring(STATION.length()) : ord;
+        if (!path.startsWith(SLOT) || path.indexOf('|') >= 0) {
+            return BOrd.make(ord).get(base, cx).asComponent();
+        }
+
+        Node node = root;
+        int start = SLOT.length();
+        int len = path.length();
+        while (start < len) {
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = len;
+            }
+            if (end > start) {
+                String name = path.substring(start, end);
+                if (name.equals("..") || name.equals(".")) {
+                    // relative steps are rare enough to leave to the ord
+                    return BOrd.make(ord).get(base, cx).asComponent();
+                }
+                node = node.child(name, ord);
+            }
+            start = end + 1;
+        }
+        return node.component;
+    }
+
+    /**
+     * @param ord the ord of a component
+     * @return the slot path it names, such as <code>slot:/Floor1/VAV1</code>,
+     * or null if it is not an absolute slot path
+     */
+    static String slotPathOf(String ord) {
+        String path = ord.startsWith(STATION) ? ord.substring(STATION.length()) : ord;
+        if (!path.startsWith(SLOT) || path.indexOf('|') >= 0) {
+            return null;
+        }
+        while (path.length() > SLOT.length() && path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+        return path;
+    }
+
+    /**
+     * @return how many child lookups have actually been done, for reporting
+     */
+    public int getWalks() {
+        return walks;
+    }
+
+    /**
+     * A resolved component and the children that have been asked for so far.
+     */
+    private final class Node {
+        final BComponent component;
+        HashMap<String, Node> children;
+
+        Node(BComponent component) {
+            this.component = component;
+        }
+
+        Node child(String name, String ord) {
+            if (children == null) {
+                children = new HashMap<String, Node>();
+            }
+            Node child = children.get(name);
+            if (child == null) {
+                walks++;
+
+                // a no-op in the station, makes sure a Workbench proxy has its children
+                component.loadSlots();
+                BValue value = component.get(name);
+                if (!(value instanceof BComponent)) {
+                    throw new IllegalArgumentException("Unable to resolve \"" + ord + "\", no component named " + name);
+                }
+                child = new Node((BComponent) value);
+                children.put(name, child);
+            }
+            return child;
+        }
+    }
+}
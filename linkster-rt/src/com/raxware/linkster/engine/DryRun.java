@@ -0,0 +1,255 @@
+/*
+ Licensed to the Apache Software Foundation (ASF) under one
+ or more contributor license agreements.  See the NOTICE file
+ distributed with this work for additional information
+ regarding copyright ownership.  The ASF licenses this file
+ to you under the Apache License, Version 2.0 (the
+ "License"); you may not use this file except in compliance
+ with the License.  You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing,
+ software distributed under the License is distributed on an
+ "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ KIND, either express or implied.  See the License for the
+ specific language governing permissions and limitations
+ under the License.
+ */
+package com.raxware.linkster.engine;
+
+import com.raxware.linkster.qglobber.CompiledTemplate;
+import com.raxware.linkster.qglobber.OrdBuffer;
+
+import javax.baja.security.BPermissions;
+import javax.baja.sys.BComponent;
+import javax.baja.sys.Context;
+import javax.baja.sys.LinkCheck;
+import javax.baja.sys.Slot;
+
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Checks every pair of a plan the way linking would, including
+ * <code>checkLink</code>, without changing anything.
+ * <p>
+ * Pairs are handed out in batches to a small pool of worker threads.  Each
+ * worker keeps its own <code>ComponentResolver</code>, since a resolver caches
+ * what it has walked and is not meant to be shared.  Only reads are done, so
+ * the workers can safely look at the same components at once, and they share
+ * one <code>LinkCheckCache</code>.  The thread running the dry run collects
+ * the batches as they finish, reports progress and stops handing out more if
+ * it is canceled.
+ *
+ * @author Will Chapman
+ */
+public class DryRun {
+
+    private final BComponent base;
+    private final Context cx;
+    private final int threads;
+    private LinkMonitor monitor = LinkMonitor.NONE;
+    private final LinkCheckCache checks = new LinkCheckCache();
+    private String[] fromSlots;
+    private String[] toSlots;
+
+    /**
+     * @param base    what the ords are resolved against
+     * @param cx      the context of the user running the dry run, used for permission checks
+     * @param threads the most worker threads to use
+     */
+    public DryRun(BComponent base, Context cx, int threads) {
+        this.base = base;
+        this.cx = cx;
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * @param monitor told about progress as batches finish, and asked whether to stop
+     */
+    public void setMonitor(LinkMonitor monitor) {
+        this.monitor = monitor;
+    }
+
+    /**
+     * @param slotPairs the "from" slots and the "to" slots to check between
+     *                  each pair of components, or null for the slot of each row
+     */
+    public void setSlotPairs(String[][] slotPairs) {
+        this.fromSlots = slotPairs == null ? null : slotPairs[0];
+        this.toSlots = slotPairs == null ? null : slotPairs[1];
+    }
+
+    /**
+     * @param pairing both sides and how their rows are paired
+     * @return what was found
+     * @throws IllegalArgumentException if pairing by position and the sides are not the same size
+     */
+    public DryRunReport run(RowPairing pairing) {
+        long total = pairing.size();
+        DryRunReport report = new DryRunReport();
+        ConcurrentLinkedQueue<ComponentResolver> resolvers = new ConcurrentLinkedQueue<ComponentResolver>();
+        ExecutorService pool = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private int n;
+
+            public synchronized Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "Linkster:DryRun:" + (++n));
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        CompletionService<DryRunReport> finished = new ExecutorCompletionService<DryRunReport>(pool);
+
+        try {
+            RowPairing.Cursor c = pairing.cursor();
+            long[] batch = new long[LinkEngine.BATCH * 2];
+            long checked = 0;
+            int inFlight = 0;
+            boolean more = true;
+            while (true) {
+                // keep every worker busy, with one batch each waiting behind it
+                while (more && inFlight < threads * 2) {
+                    int n = 0;
+                    while (n < LinkEngine.BATCH && (more = c.next())) {
+                        batch[n * 2] = c.getFromIndex();
+                        batch[n * 2 + 1] = c.getToIndex();
+                        n++;
+                    }
+                    if (n > 0) {
+                        finished.submit(new Batch(pairing, Arrays.copyOf(batch, n * 2), resolvers));
+                        inFlight++;
+                    }
+                }
+                if (inFlight == 0) {
+                    break;
+                }
+
+                DryRunReport part = finished.take().get();
+                inFlight--;
+                report.merge(part);
+                checked += part.getRows();
+                monitor.progress(checked, total);
+                if (checked < total && monitor.isCanceled()) {
+                    report.cancel();
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            report.cancel();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Dry run failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        report.finish();
+        return report;
+    }
+
+    /**
+     * Checks one batch of pairs on a worker thread.
+     */
+    private final class Batch implements Callable<DryRunReport> {
+
+        private final RowPairing pairing;
+        private final long[] pairs;
+        private final ConcurrentLinkedQueue<ComponentResolver> resolvers;
+
+        Batch(RowPairing pairing, long[] pairs, ConcurrentLinkedQueue<ComponentResolver> resolvers) {
+            this.pairing = pairing;
+            this.pairs = pairs;
+            this.resolvers = resolvers;
+        }
+
+        public DryRunReport call() {
+            ComponentResolver resolver = resolvers.poll();
+            if (resolver == null) {
+                resolver = new ComponentResolver(base, cx);
+            }
+            try {
+                return check(resolver);
+            } finally {
+                resolvers.add(resolver);
+            }
+        }
+
+        private DryRunReport check(ComponentResolver resolver) {
+            CompiledTemplate from = pairing.getFrom();
+            CompiledTemplate to = pairing.getTo();
+            int[] fromCoords = new int[from.getDimensions()];
+            int[] toCoords = new int[to.getDimensions()];
+            OrdBuffer fromBuf = from.newBuffer();
+            OrdBuffer toBuf = to.newBuffer();
+
+            DryRunReport part = new DryRunReport();
+            for (int i = 0; i < pairs.length; i += 2) {
+                from.decode(pairs[i], fromCoords);
+                to.decode(pairs[i + 1], toCoords);
+                String fromRow = from.render(fromCoords, fromBuf).toString();
+                String toRow = to.render(toCoords, toBuf).toString();
+                check(resolver, fromRow, toRow, part);
+            }
+            return part;
+        }
+
+        private void check(ComponentResolver resolver, String fromRow, String toRow, DryRunReport part) {
+            String row = fromRow + " -> " + toRow;
+            BComponent fromComp;
+            BComponent toComp;
+            try {
+                fromComp = resolver.resolve(LinkEngine.ordOf(fromRow));
+                toComp = resolver.resolve(LinkEngine.ordOf(toRow));
+            } catch (Exception e) {
+                part.problem(DryRunReport.UNRESOLVED, row, e.getMessage());
+                return;
+            }
+
+            if (fromSlots == null) {
+                check(fromComp, LinkEngine.slotOf(fromRow), toComp, LinkEngine.slotOf(toRow), row, part);
+                return;
+            }
+            String fromOrd = LinkEngine.ordOf(fromRow);
+            String toOrd = LinkEngine.ordOf(toRow);
+            for (int i = 0; i < fromSlots.length; i++) {
+                row = fromOrd + "." + fromSlots[i] + " -> " + toOrd + "." + toSlots[i];
+                check(fromComp, fromSlots[i], toComp, toSlots[i], row, part);
+            }
+        }
+
+        private void check(BComponent fromComp, String fromSlot, BComponent toComp, String toSlot,
+                           String row, DryRunReport part) {
+            try {
+                BPermissions fromPerms = fromComp.getPermissions(cx);
+                BPermissions toPerms = toComp.getPermissions(cx);
+                if (!fromPerms.hasOperatorRead() || !toPerms.hasOperatorWrite()) {
+                    part.problem(DryRunReport.PERMISSION, row, null);
+                    return;
+                }
+
+                Slot source = checks.getSlot(fromComp, fromSlot);
+                Slot target = checks.getSlot(toComp, toSlot);
+                if (source == null || target == null) {
+                    part.problem(DryRunReport.MISSING_SLOT, row, "[" + (source == null ? fromSlot : toSlot) + " DNE]");
+                    return;
+                }
+
+                LinkCheck linkCheck = checks.checkLink(fromComp, source, toComp, target, cx);
+                if (!linkCheck.isValid()) {
+                    part.problem("Invalid: " + (linkCheck.getInvalidReason() == null ? "no reason given" : linkCheck.getInvalidReason()), row, null);
+                    return;
+                }
+                part.valid(linkCheck.getConverter() != null);
+            } catch (Exception e) {
+                part.problem(DryRunReport.FAILED, row, e.getMessage());
+            }
+        }
+    }
+}
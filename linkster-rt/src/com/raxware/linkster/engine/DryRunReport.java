@@ -0,0 +1,181 @@
+/*
+ Licensed to the Apache Software Foundation (ASF) under one
+ or more contributor license agreements.  See the NOTICE file
+ distributed with this work for additional information
+ regarding copyright ownership.  The ASF licenses this file
+ to you under the Apache License, Version 2.0 (the
+ "License"); you may not use this file except in compliance
+ with the License.  You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing,
+ software distributed under the License is distributed on an
+ "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ KIND, either express or implied.  See the License for the
+ specific language governing permissions and limitations
+ under the License.
+ */
+package com.raxware.linkster.engine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What a dry run found, grouped by kind of problem rather than one line per
+ * row, so the report for a plan of fifty thousand pairs still fits on a screen.
+ * <p>
+ * Each worker fills in its own report and they are merged as batches finish.
+ * Only the first <code>MAX_SAMPLES</code> rows of each kind are kept word for
+ * word.
+ *
+ * @author Will Chapman
+ */
+public class DryRunReport {
+
+    static final int MAX_SAMPLES = 3;
+
+    static final String UNRESOLVED = "Unresolved";
+    static final String PERMISSION = "No permission";
+    static final String MISSING_SLOT = "Missing slot";
+    static final String FAILED = "Failed";
+
+    private final long startMillis = System.currentTimeMillis();
+    private long endMillis;
+
+    private long rows;
+    private long valid;
+    private long conversions;
+    private boolean canceled;
+    private final Map<String, Problem> problems = new HashMap<String, Problem>();
+
+    /**
+     * Records a pair that would link.
+     */
+    public synchronized void valid(boolean conversion) {
+        rows++;
+        valid++;
+        if (conversion) {
+            conversions++;
+        }
+    }
+
+    /**
+     * Records a pair that would not link.
+     *
+     * @param kind   the kind of problem, pairs with the same kind are counted together
+     * @param row    the pair, kept as a sample
+     * @param detail what exactly was wrong with this pair
+     */
+    public synchronized void problem(String kind, String row, String detail) {
+        rows++;
+        Problem p = problems.get(kind);
+        if (p == null) {
+            p = new Problem(kind);
+            problems.put(kind, p);
+        }
+        p.add(1, row + (detail == null ? "" : " " + detail));
+    }
+
+    /**
+     * Adds another report's counts to this one.
+     */
+    public synchronized void merge(DryRunReport other) {
+        synchronized (other) {
+            rows += other.rows;
+            valid += other.valid;
+            conversions += other.conversions;
+            for (Problem op : other.problems.values()) {
+                Problem p = problems.get(op.kind);
+                if (p == null) {
+                    p = new Problem(op.kind);
+                    problems.put(op.kind, p);
+                }
+                p.count += op.count;
+                for (int i = 0; i < op.samples.size(); i++) {
+                    p.add(0, op.samples.get(i));
+                }
+            }
+        }
+    }
+
+    public synchronized void cancel() {
+        canceled = true;
+    }
+
+    public synchronized boolean isCanceled() {
+        return canceled;
+    }
+
+    public synchronized void finish() {
+        endMillis = System.currentTimeMillis();
+    }
+
+    public synchronized long getRows() {
+        return rows;
+    }
+
+    public synchronized long getValid() {
+        return valid;
+    }
+
+    /**
+     * @param kind the kind of problem
+     * @return how many pairs had it
+     */
+    public synchronized long getCount(String kind) {
+        Problem p = problems.get(kind);
+        return p == null ? 0 : p.count;
+    }
+
+    public synchronized String toString() {
+        long elapsed = (endMillis == 0 ? System.currentTimeMillis() : endMillis) - startMillis;
+        StringBuilder sb = new StringBuilder();
+        sb.append("Dry run of ").append(rows).append(" pairs in ").append(elapsed).append(" ms");
+        if (elapsed > 0) {
+            sb.append(" (").append(rows * 1000 / elapsed).append(" pairs/sec)");
+        }
+        if (canceled) {
+            sb.append(" - CANCELED");
+        }
+        sb.append('\n');
+        sb.append("   Would link:    ").append(valid).append(" (").append(conversions).append(" conversion)\n");
+        sb.append("   Would not:     ").append(rows - valid);
+
+        // most common first
+        List<Problem> sorted = new ArrayList<Problem>(problems.values());
+        Collections.sort(sorted, new Comparator<Problem>() {
+            public int compare(Problem a, Problem b) {
+                return a.count == b.count ? a.kind.compareTo(b.kind) : (a.count > b.count ? -1 : 1);
+            }
+        });
+        for (Problem p : sorted) {
+            sb.append("\n   ").append(p.count).append(" x ").append(p.kind);
+            for (int i = 0; i < p.samples.size(); i++) {
+                sb.append("\n      ").append(p.samples.get(i));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static final class Problem {
+        final String kind;
+        long count;
+        final List<String> samples = new ArrayList<String>();
+
+        Problem(String kind) {
+            this.kind = kind;
+        }
+
+        void add(int n, String sample) {
+            count += n;
+            if (samples.size() < MAX_SAMPLES) {
+                samples.add(sample);
+            }
+        }
+    }
+}
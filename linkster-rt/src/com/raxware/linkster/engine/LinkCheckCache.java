@@ -0,0 +1,196 @@
+/*
+ Licensed to the Apache Software Foundation (ASF) under one
+ or more contributor license agreements.  See the NOTICE file
+ distributed with this work for additional information
+ regarding copyright ownership.  The ASF licenses this file
+ to you under the Apache License, Version 2.0 (the
+ "License"); you may not use this file except in compliance
+ with the License.  You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing,
+ software distributed under the License is distributed on an
+ "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ KIND, either express or implied.  See the License for the
+ specific language governing permissions and limitations
+ under the License.
+ */
+package com.raxware.linkster.engine;
+
+import javax.baja.security.BPermissions;
+import javax.baja.sys.BComponent;
+import javax.baja.sys.Context;
+import javax.baja.sys.Flags;
+import javax.baja.sys.LinkCheck;
+import javax.baja.sys.Slot;
+import javax.baja.sys.Type;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers slot lookups and <code>checkLink</code> verdicts for a job, by
+ * component type and slot name.
+ * <p>
+ * A plan usually links many components of the same type, say 2,000 VAVs, so
+ * the same question about the same slots of the same types is asked 2,000
+ * times.  Only what depends on the type alone is cached:
+ * <ul>
+ * <li>frozen slots, which every instance of a type shares; dynamic slots are
+ * always looked up on the component</li>
+ * <li>verdicts for targets whose class leaves <code>checkLink</code> as
+ * <code>BComponent</code> has it, with frozen slots on both ends.  That check
+ * is known to depend on the instances only through their slot flags, which
+ * are part of the key since they can be changed per instance, the user's
+ * permissions, which are checked on every component, and whether the two
+ * are the same component, which always gets the real check.  A class that
+ * overrides <code>checkLink</code> may look at anything on the instance, so
+ * its verdicts are never cached.</li>
+ * </ul>
+ * The real <code>checkLink</code> is also called when permissions are not
+ * plainly enough, so its reason is reported, and when there is no user to
+ * check them for, so a job run without one is checked exactly as before.
+ * <p>
+ * Safe to share between threads.
+ *
+ * @author Will Chapman
+ */
+class LinkCheckCache {
+
+    private final ConcurrentHashMap<Type, Map<String, Slot>> slots = new ConcurrentHashMap<Type, Map<String, Slot>>();
+    private final Map<Key, LinkCheck> verdicts = new ConcurrentHashMap<Key, LinkCheck>();
+    private static final Map<Class<?>, Boolean> defaultCheck = new ConcurrentHashMap<Class<?>, Boolean>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @return the slot, or null if the component does not have one by that name
+     */
+    Slot getSlot(BComponent comp, String name) {
+        Map<String, Slot> byName = slots.get(comp.getType());
+        if (byName == null) {
+            byName = new ConcurrentHashMap<String, Slot>();
+            Map<String, Slot> raced = slots.putIfAbsent(comp.getType(), byName);
+            if (raced != null) {
+                byName = raced;
+            }
+        }
+        Slot slot = byName.get(name);
+        if (slot != null) {
+            return slot;
+        }
+
+        slot = comp.getSlot(name);
+        if (slot != null && slot.isFrozen()) {
+            byName.put(name, slot);
+        }
+        return slot;
+    }
+
+    /**
+     * Same as <code>to.checkLink(from, source, target, cx)</code>, answered
+     * from the cache when that is safe.
+     */
+    LinkCheck checkLink(BComponent from, Slot source, BComponent to, Slot target, Context cx) {
+        if (from == to || !source.isFrozen() || !target.isFrozen() || !usesDefaultCheck(to.getClass())
+                || !canLink(from, source, to, target, cx)) {
+            return to.checkLink(from, source, target, cx);
+        }
+
+        Key key = new Key(from.getType(), source.getName(), from.getFlags(source),
+                to.getType(), target.getName(), to.getFlags(target));
+        LinkCheck verdict = verdicts.get(key);
+        if (verdict != null) {
+            hits.incrementAndGet();
+            return verdict;
+        }
+
+        misses.incrementAndGet();
+        verdict = to.checkLink(from, source, target, cx);
+        verdicts.put(key, verdict);
+        return verdict;
+    }
+
+    long getHits() {
+        return hits.get();
+    }
+
+    long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * The user can read the source slot and write the target slot.  Anything
+     * short of that, including no user at all, goes to the real
+     * <code>checkLink</code>.
+     */
+    private static boolean canLink(BComponent from, Slot source, BComponent to, Slot target, Context cx) {
+        if (cx == null || cx.getUser() == null) {
+            return false;
+        }
+        BPermissions fromPerms = from.getPermissions(cx);
+        BPermissions toPerms = to.getPermissions(cx);
+        boolean read = (from.getFlags(source) & Flags.OPERATOR) != 0 ? fromPerms.hasOperatorRead() : fromPerms.hasAdminRead();
+        boolean write = (to.getFlags(target) & Flags.OPERATOR) != 0 ? toPerms.hasOperatorWrite() : toPerms.hasAdminWrite();
+        return read && write;
+    }
+
+    /**
+     * @return true if the class does not override <code>checkLink</code>
+     */
+    private static boolean usesDefaultCheck(Class<?> cls) {
+        Boolean result = defaultCheck.get(cls);
+        if (result == null) {
+            try {
+                Class<?> declaring = cls.getMethod("checkLink", BComponent.class, Slot.class, Slot.class, Context.class)
+                        .getDeclaringClass();
+                result = declaring == BComponent.class;
+            } catch (NoSuchMethodException e) {
+                result = Boolean.FALSE;
+            }
+            defaultCheck.put(cls, result);
+        }
+        return result;
+    }
+
+    private static final class Key {
+        private final Type fromType;
+        private final String fromSlot;
+        private final int fromFlags;
+        private final Type toType;
+        private final String toSlot;
+        private final int toFlags;
+        private final int hash;
+
+        Key(Type fromType, String fromSlot, int fromFlags, Type toType, String toSlot, int toFlags) {
+            this.fromType = fromType;
+            this.fromSlot = fromSlot;
+            this.fromFlags = fromFlags;
+            this.toType = toType;
+            this.toSlot = toSlot;
+            this.toFlags = toFlags;
+            int h = fromType.hashCode();
+            h = h * 31 + fromSlot.hashCode();
+            h = h * 31 + fromFlags;
+            h = h * 31 + toType.hashCode();
+            h = h * 31 + toSlot.hashCode();
+            this.hash = h * 31 + toFlags;
+        }
+
+        public int hashCode() {
+            return hash;
+        }
+
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key k = (Key) o;
+            return fromType == k.fromType && toType == k.toType && fromFlags == k.fromFlags && toFlags == k.toFlags
+                    && fromSlot.equals(k.fromSlot) && toSlot.equals(k.toSlot);
+        }
+    }
+}
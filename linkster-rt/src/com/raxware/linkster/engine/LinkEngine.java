@@ -0,0 +1,484 @@
+/*
+ Licensed to the Apache Software Foundation (ASF) under one
+ or more contributor license agreements.  See the NOTICE file
+ distributed with this work for additional information
+ regarding copyright ownership.  The ASF licenses this file
+ to you under the Apache License, Version 2.0 (the
+ "License"); you may not use this file except in compliance
+ with the License.  You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing,
+ software distributed under the License is distributed on an
+ "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ KIND, either express or implied.  See the License for the
+ specific language governing permissions and limitations
+ under the License.
+ */
+package com.raxware.linkster.engine;
+
+import com.raxware.linkster.planfile.LinkRecord;
+import com.raxware.linkster.planfile.PlanFileReader;
+import com.raxware.linkster.qglobber.CompiledTemplate;
+import com.raxware.linkster.qglobber.OrdBuffer;
+
+import javax.baja.log.Log;
+import javax.baja.sys.BComponent;
+import javax.baja.sys.BComponentSpace;
+import javax.baja.sys.BLink;
+import javax.baja.sys.Context;
+import javax.baja.sys.LinkCheck;
+import javax.baja.sys.Slot;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Does the actual linking for a job, inside the station.
+ * <p>
+ * Both sides are handed over as compiled templates and expanded here, row by
+ * row, so a job is one request no matter how many links it makes.  Row i of
+ * the "from" side is linked to row i of the "to" side, unless the plan joins
+ * the sides by coordinates (see <code>RowPairing</code>).  Each row is the ord
+ * of a component, a period, then the slot name.
+ *
+ * @author Will Chapman
+ */
+public class LinkEngine {
+
+    private static final Log log = Log.getLog("linkster");
+
+    /**
+     * Rows between progress reports and checks for cancellation.
+     */
+    static final int BATCH = 250;
+
+    private final BComponent base;
+    private final Context cx;
+    private final ComponentResolver resolver;
+    private final LinkNamer namer = new LinkNamer();
+    private final LinkCheckCache checks = new LinkCheckCache();
+    private LinkMonitor monitor = LinkMonitor.NONE;
+    private LinkIndex index;
+    private LinkMetrics metrics = new LinkMetrics();
+    private boolean removeStale;
+    private String[] fromSlots;
+    private String[] toSlots;
+
+    /**
+     * @param base what the ords are resolved against
+     * @param cx   the context of the user running the job, used for permission checks
+     */
+    public LinkEngine(BComponent base, Context cx) {
+        this.base = base;
+        this.cx = cx;
+        this.resolver = new ComponentResolver(base, cx);
+    }
+
+    /**
+     * @param monitor told about progress between batches, and asked whether to stop
+     */
+    public void setMonitor(LinkMonitor monitor) {
+        this.monitor = monitor;
+    }
+
+    /**
+     * @param metrics where to record how long each phase takes, shared across jobs
+     */
+    public void setMetrics(LinkMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Links several slots between each pair of components, which are then
+     * resolved once for all of them instead of once per slot.
+     *
+     * @param slotPairs the "from" slots and the "to" slots, the same length,
+     *                  or null to take the one slot from each row
+     */
+    public void setSlotPairs(String[][] slotPairs) {
+        this.fromSlots = slotPairs == null ? null : slotPairs[0];
+        this.toSlots = slotPairs == null ? null : slotPairs[1];
+    }
+
+    /**
+     * Turns on reconcile mode: links the targets already have are counted
+     * instead of being added a second time, so running a job again only
+     * does what is missing.
+     *
+     * @param removeStale also remove links this tool made into the slots the
+     *                    plan writes, from sources the plan no longer names
+     */
+    public void setReconcile(boolean removeStale) {
+        this.index = new LinkIndex();
+        this.removeStale = removeStale;
+    }
+
+    /**
+     * Reports progress at the end of every batch.
+     *
+     * @param done    rows processed so far
+     * @param total   rows in the job
+     * @param summary marked as canceled if the monitor asks to stop
+     * @return false if the job should stop
+     */
+    private boolean checkpoint(long done, long total, LinkSummary summary) {
+        if (done % BATCH != 0 && done != total) {
+            return true;
+        }
+        monitor.progress(done, total);
+        if (done < total && monitor.isCanceled()) {
+            summary.cancel();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Links every row of one side to the same row of the other.
+     *
+     * @param from the "from" side
+     * @param to   the "to" side
+     * @return what happened
+     * @throws IllegalArgumentException if the sides are not the same size
+     */
+    public LinkSummary run(CompiledTemplate from, CompiledTemplate to) {
+        return run(RowPairing.make(from, to, ""));
+    }
+
+    /**
+     * Links each pair of rows.
+     *
+     * @param pairing both sides and how their rows are paired
+     * @return what happened
+     * @throws IllegalArgumentException if pairing by position and the sides are not the same size
+     */
+    public LinkSummary run(RowPairing pairing) {
+        CompiledTemplate from = pairing.getFrom();
+        CompiledTemplate to = pairing.getTo();
+        long total = pairing.size();
+
+        LinkSummary summary = new LinkSummary();
+        log.message("Linking " + total + " components.");
+        int[] fromCoords = new int[from.getDimensions()];
+        int[] toCoords = new int[to.getDimensions()];
+        OrdBuffer fromBuf = from.newBuffer();
+        OrdBuffer toBuf = to.newBuffer();
+        RowPairing.Cursor c = pairing.cursor();
+        long done = 0;
+        while (c.next()) {
+            long t0 = System.nanoTime();
+            from.decode(c.getFromIndex(), fromCoords);
+            to.decode(c.getToIndex(), toCoords);
+            String fromRow = from.render(fromCoords, fromBuf).toString();
+            String toRow = to.render(toCoords, toBuf).toString();
+            metrics.expand.record(System.nanoTime() - t0);
+            link(fromRow, toRow, summary);
+            if (!checkpoint(++done, total, summary)) {
+                break;
+            }
+        }
+        removeStale(summary);
+        summary.finish();
+        logChecks();
+        return summary;
+    }
+
+    /**
+     * Links a plan that has already been analyzed.  Components are found by
+     * the handles the analysis recorded; any that can no longer be found that
+     * way, have been moved or renamed since, or can no longer be read by the
+     * user, are resolved by path as usual.
+     *
+     * @param plan the analyzed plan
+     * @return what happened
+     */
+    public LinkSummary run(ResolvedPlan plan) {
+        CompiledTemplate from = plan.getFrom();
+        CompiledTemplate to = plan.getTo();
+        BComponentSpace space = base.getComponentSpace();
+        long total = plan.getPairing().size();
+
+        LinkSummary summary = new LinkSummary();
+        log.message("Linking " + total + " analyzed components.");
+        int[] fromCoords = new int[from.getDimensions()];
+        int[] toCoords = new int[to.getDimensions()];
+        OrdBuffer fromBuf = from.newBuffer();
+        OrdBuffer toBuf = to.newBuffer();
+        RowPairing.Cursor c = plan.getPairing().cursor();
+        long done = 0;
+        while (c.next()) {
+            int fromIndex = (int) c.getFromIndex();
+            int toIndex = (int) c.getToIndex();
+            long t0 = System.nanoTime();
+            from.decode(fromIndex, fromCoords);
+            to.decode(toIndex, toCoords);
+            String fromRow = from.render(fromCoords, fromBuf).toString();
+            String toRow = to.render(toCoords, toBuf).toString();
+            String row = fromRow + " -> " + toRow;
+            long t1 = System.nanoTime();
+            metrics.expand.record(t1 - t0);
+
+            BComponent fromComp = null;
+            BComponent toComp = null;
+            try {
+                fromComp = byHandle(space, plan.fromHandles[fromIndex], fromRow);
+                toComp = byHandle(space, plan.toHandles[toIndex], toRow);
+            } catch (Exception e) {
+                summary.unresolved(row, e.getMessage());
+            }
+            metrics.resolve.record(System.nanoTime() - t1);
+            if (toComp != null) {
+                linkSlots(fromComp, fromRow, toComp, toRow, summary);
+            }
+
+            if (!checkpoint(++done, total, summary)) {
+                break;
+            }
+        }
+        removeStale(summary);
+        summary.finish();
+        logChecks();
+        return summary;
+    }
+
+    /**
+     * Links every record of a plan file, reading it one block at a time.
+     * Slot pairs set on the engine are ignored; each record names its own.
+     *
+     * @param plan the plan file, read from where it is positioned to the end
+     * @return what happened
+     * @throws IOException if the file can not be read or a block is corrupt
+     */
+    public LinkSummary run(PlanFileReader plan) throws IOException {
+        long total = plan.size();
+
+        LinkSummary summary = new LinkSummary();
+        log.message("Linking " + total + " links from a plan file.");
+        long done = plan.position();
+        for (LinkRecord r = plan.next(); r != null; r = plan.next()) {
+            BComponent from = null;
+            BComponent to = null;
+            long t0 = System.nanoTime();
+            try {
+                from = resolve(r.getSourceOrd());
+                to = resolve(r.getTargetOrd());
+            } catch (Exception e) {
+                summary.unresolved(r.toString(), e.getMessage());
+            }
+            metrics.resolve.record(System.nanoTime() - t0);
+            if (to != null) {
+                link(from, r.getSourceSlot(), to, r.getTargetSlot(), r.toString(), summary);
+            }
+
+            if (!checkpoint(++done, total, summary)) {
+                break;
+            }
+        }
+        removeStale(summary);
+        summary.finish();
+        logChecks();
+        return summary;
+    }
+
+    /**
+     * Finding a component by handle skips the permission checks resolving
+     * its path makes, so a component the user can no longer read is resolved
+     * by path again and fails there the same way.  Writing the target is
+     * still checked by <code>checkLink</code>.
+     *
+     * @param space  the component space the handle belongs to
+     * @param handle the handle recorded when the plan was analyzed
+     * @param row    the row, used to resolve the component again if it is stale
+     * @return the component
+     */
+    private BComponent byHandle(BComponentSpace space, Object handle, String row) {
+        String ord = ordOf(row);
+        BComponent comp = handle == null ? null : space.findByHandle(handle);
+        if (comp == null || !comp.isMounted() || !isAt(comp, ord) || !canRead(comp)) {
+            comp = resolve(ord);
+        }
+        return comp;
+    }
+
+    private boolean canRead(BComponent comp) {
+        return cx == null || cx.getUser() == null || comp.getPermissions(cx).hasOperatorRead();
+    }
+
+    /**
+     * @return true if the component is still where the ord says, so one that
+     * was moved or renamed since the analysis is not linked in its new place
+     */
+    private static boolean isAt(BComponent comp, String ord) {
+        String path = ComponentResolver.slotPathOf(ord);
+        return path != null && path.equals(comp.getSlotPath().toString());
+    }
+
+    /**
+     * Links a single row.
+     *
+     * @param fromRow the "from" ord and slot, separated by the last period
+     * @param toRow   the "to" ord and slot, separated by the last period
+     * @param summary where to record the outcome
+     */
+    public void link(String fromRow, String toRow, LinkSummary summary) {
+        String row = fromRow + " -> " + toRow;
+
+        BComponent from;
+        BComponent to;
+        long t0 = System.nanoTime();
+        try {
+            from = resolve(ordOf(fromRow));
+            to = resolve(ordOf(toRow));
+        } catch (Exception e) {
+            summary.unresolved(row, e.getMessage());
+            return;
+        } finally {
+            metrics.resolve.record(System.nanoTime() - t0);
+        }
+        linkSlots(from, fromRow, to, toRow, summary);
+    }
+
+    /**
+     * Links the slot of each row, or every pair of slots when there are
+     * several.
+     */
+    private void linkSlots(BComponent from, String fromRow, BComponent to, String toRow, LinkSummary summary) {
+        if (fromSlots == null) {
+            link(from, slotOf(fromRow), to, slotOf(toRow), fromRow + " -> " + toRow, summary);
+            return;
+        }
+
+        String fromOrd = ordOf(fromRow);
+        String toOrd = ordOf(toRow);
+        for (int i = 0; i < fromSlots.length; i++) {
+            String row = fromOrd + "." + fromSlots[i] + " -> " + toOrd + "." + toSlots[i];
+            link(from, fromSlots[i], to, toSlots[i], row, summary);
+        }
+    }
+
+    /**
+     * Links two resolved components.
+     *
+     * @param from     the source component
+     * @param fromSlot the source slot name
+     * @param to       the target component
+     * @param toSlot   the target slot name
+     * @param row      describes the row in the summary
+     * @param summary  where to record the outcome
+     */
+    void link(BComponent from, String fromSlot, BComponent to, String toSlot, String row, LinkSummary summary) {
+        //
+        // it would seem that the makeLink on BComponent does everything we need,
+        // including checking for (and creating) BConversionLink objects
+        // as needed.  So we will let that method do our heavy lifting.
+        try {
+            Slot source = checks.getSlot(from, fromSlot);
+            Slot target = checks.getSlot(to, toSlot);
+            if (source == null || target == null) {
+                summary.invalid(row, "[" + (source == null ? fromSlot : toSlot) + " DNE]");
+                return;
+            }
+
+            if (index != null && index.contains(from, fromSlot, to, toSlot)) {
+                summary.present();
+                return;
+            }
+
+            long t0 = System.nanoTime();
+            LinkCheck linkCheck = checks.checkLink(from, source, to, target, cx);
+            long t1 = System.nanoTime();
+            metrics.checkLink.record(t1 - t0);
+            if (!linkCheck.isValid()) {
+                summary.invalid(row, linkCheck.getInvalidReason());
+                return;
+            }
+
+            BLink link = to.makeLink(from, source, target, cx);
+            long t2 = System.nanoTime();
+            metrics.makeLink.record(t2 - t1);
+            to.add(namer.name(to, LinkIndex.LINK_PREFIX + fromSlot + "_" + toSlot), link, 0, null, cx);
+            metrics.add.record(System.nanoTime() - t2);
+            if (index != null) {
+                index.added(from, fromSlot, to, toSlot, link);
+            }
+            summary.linked(isConversionLink(link));
+        } catch (Exception e) {
+            summary.failed(row, e.getMessage());
+            log.error("Unable to add link", e);
+        }
+    }
+
+    private void logChecks() {
+        log.message("checkLink verdicts: " + checks.getHits() + " from cache, " + checks.getMisses() + " checked");
+    }
+
+    /**
+     * Counts the stale links found while reconciling, and removes them if
+     * asked to.  Skipped when the job was canceled or any row could not be
+     * resolved, since then the plan was not seen in full and a link that
+     * looks stale may not be.
+     *
+     * @param summary where to record the outcome
+     */
+    private void removeStale(LinkSummary summary) {
+        if (index == null || summary.isCanceled() || summary.getUnresolved() > 0) {
+            return;
+        }
+        List<BLink> stale = index.stale();
+        summary.stale(stale.size());
+        if (!removeStale) {
+            return;
+        }
+        for (int i = 0; i < stale.size(); i++) {
+            BLink link = stale.get(i);
+            try {
+                LinkIndex.remove(link, cx);
+                summary.removed();
+            } catch (Exception e) {
+                summary.removeFailed(link.getName(), e.getMessage());
+                log.error("Unable to remove link", e);
+            }
+        }
+    }
+
+    /**
+     * @param row an ord, a period, then a slot name
+     * @return the ord
+     */
+    static String ordOf(String row) {
+        return row.substring(0, Math.max(0, row.lastIndexOf('.')));
+    }
+
+    /**
+     * @param row an ord, a period, then a slot name
+     * @return the slot name
+     */
+    static String slotOf(String row) {
+        return row.substring(row.lastIndexOf('.') + 1);
+    }
+
+    /**
+     * Components are resolved through a prefix tree, so the parts of the
+     * path that rows share are only walked once for the whole job.
+     *
+     * @param ord the ord of a component
+     * @return the component
+     */
+    BComponent resolve(String ord) {
+        return resolver.resolve(ord);
+    }
+
+    /**
+     * We need to maintain backwards compatibility, so since 3.5 does not
+     * know anything about javax.baja.sys.BConversionLink we need to use
+     * the String representation of the Type to determine what we got back.
+     *
+     * @param link
+     * @return
+     */
+    static boolean isConversionLink(BLink link) {
+        return link.getType().toString().equals("baja:ConversionLink");
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ Licensed to the Apache Software Foundation (ASF) under one
+ or more contributor license agreements.  See the NOTICE file
+ distributed with this work for additional information
+ regarding copyright ownership.  The ASF licenses this file
+ to you under the Apache License, Version 2.0 (the
+ "License"); you may not use this file except in compliance
+ with the License.  You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing,
+ software distributed under the License is distributed on an
+ "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ KIND, either express or implied.  See the License for the
+ specific language governing permissions and limitations
+ under the License.
+ */
+package com.raxware.linkster.engine;
+
+import javax.baja.sys.BComponent;
+import javax.baja.sys.BLink;
+import javax.baja.sys.Context;
+import javax.baja.sys.Property;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Indexes the links that already exist on the targets of a job, so a job run
+ * a second time only adds what is missing.
+ * <p>
+ * A target's links are read the first time the target is seen and are kept
+ * in a hash map keyed by source handle, source slot and target slot, so each
+ * row is checked in constant time no matter how many links the target has.
+ * Every link under a key is kept, so duplicates between the same two slots
+ * are seen rather than collapsing into one.  Sources are always keyed by
+ * their handle: an active link's source component gives it directly, and an
+ * inactive link's source ord (<code>h:...</code>) is read for it.
+ * <p>
+ * The index also remembers which links the plan asked for.  A link this tool
+ * made (named <code>rwLink_...</code>) into a target slot the plan writes is
+ * stale if the plan no longer names its source, or if it duplicates another
+ * link between the same slots.
+ *
+ * @author Will Chapman
+ */
+class LinkIndex {
+
+    static final String LINK_PREFIX = "rwLink_";
+
+    private static final String HANDLE_SCHEME = "h:";
+
+    private final Map<Object, Target> targets = new HashMap<Object, Target>();
+
+    /**
+     * Checks a link against the index and records that the plan wants it.
+     *
+     * @return true if the target already has this link
+     */
+    boolean contains(BComponent from, String fromSlot, BComponent to, String toSlot) {
+        Target target = target(to);
+        String key = key(handleOf(from), fromSlot, toSlot);
+        target.desired.add(key);
+        target.slots.add(toSlot);
+        return target.existing.containsKey(key);
+    }
+
+    /**
+     * Records a link that was just made, so a later row asking for it again
+     * finds it.
+     */
+    void added(BComponent from, String fromSlot, BComponent to, String toSlot, BLink link) {
+        target(to).add(key(handleOf(from), fromSlot, toSlot), link);
+    }
+
+    /**
+     * @return links made by this tool into slots the plan writes, from sources
+     * the plan does not name or duplicating another link between the same slots
+     */
+    List<BLink> stale() {
+        List<BLink> stale = new ArrayList<BLink>();
+        for (Target target : targets.values()) {
+            for (Map.Entry<String, List<BLink>> e : target.existing.entrySet()) {
+                List<BLink> links = e.getValue();
+                if (!target.slots.contains(links.get(0).getTargetSlotName())) {
+                    continue;
+                }
+                BLink kept = target.desired.contains(e.getKey()) ? keep(links) : null;
+                for (int i = 0; i < links.size(); i++) {
+                    BLink link = links.get(i);
+                    if (link != kept && isOurs(link)) {
+                        stale.add(link);
+                    }
+                }
+            }
+        }
+        return stale;
+    }
+
+    /**
+     * @return the one of several links between the same slots to keep, one
+     * that was not made by this tool if there is one
+     */
+    private static BLink keep(List<BLink> links) {
+        for (int i = 0; i < links.size(); i++) {
+            if (!isOurs(links.get(i))) {
+                return links.get(i);
+            }
+        }
+        return links.get(0);
+    }
+
+    private static boolean isOurs(BLink link) {
+        return link.getName().startsWith(LINK_PREFIX);
+    }
+
+    /**
+     * Removes a stale link from its target.
+     */
+    static void remove(BLink link, Context cx) {
+        Property prop = link.getPropertyInParent();
+        ((BComponent) link.getParent()).remove(prop, cx);
+    }
+
+    private Target target(BComponent to) {
+        Target target = targets.get(to.getHandle());
+        if (target == null) {
+            target = new Target();
+            BLink[] links = to.getLinks();
+            for (int i = 0; i < links.length; i++) {
+                target.add(key(sourceOf(links[i]), links[i].getSourceSlotName(), links[i].getTargetSlotName()), links[i]);
+            }
+            targets.put(to.getHandle(), target);
+        }
+        return target;
+    }
+
+    private static String handleOf(BComponent comp) {
+        return String.valueOf(comp.getHandle());
+    }
+
+    /**
+     * Links made in the station point at their source by handle ord.  An
+     * active link hands back the source itself; otherwise the handle is read
+     * from the ord, and any other kind of ord is the best there is.
+     */
+    private static String sourceOf(BLink link) {
+        BComponent source = link.getSourceComponent();
+        if (source != null) {
+            return handleOf(source);
+        }
+        String ord = link.getSourceOrd().toString();
+        int h = ord.lastIndexOf(HANDLE_SCHEME);
+        if (h == 0 || (h > 0 && ord.charAt(h - 1) == '|')) {
+            return ord.substring(h + HANDLE_SCHEME.length());
+        }
+        return ord;
+    }
+
+    private static String key(String sourceHandle, String sourceSlot, String targetSlot) {
+        return sourceHandle + "\u0000" + sourceSlot + "\u0000" + targetSlot;
+    }
+
+    private static final class Target {
+        final Map<String, List<BLink>> existing = new HashMap<String, List<BLink>>();
+        final Set<String> desired = new HashSet<String>();
+        final Set<String> slots = new HashSet<String>();
+
+        void add(String key, BLink link) {
+            List<BLink> links = existing.get(key);
+            if (links == null) {
+                links = new ArrayList<BLink>(1);
+                existing.put(key, links);
+            }
+            links.add(link);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ Licensed to the Apache Software Foundation (ASF) under one
+ or more contributor license agreements.  See the NOTICE file
+ distributed with this work for additional information
+ regarding copyright ownership.  The ASF licenses this file
+ to you under the Apache License, Version 2.0 (the
+ "License"); you may not use this file except in compliance
+ with the License.  You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing,
+ software distributed under the License is distributed on an
+ "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ KIND, either express or implied.  See the License for the
+ specific language governing permissions and limitations
+ under the License.
+ */
+package com.raxware.linkster.engine;
+
+/**
+ * How long each phase of linking a row takes, across every job the engine
+ * has run since the metrics were last reset.
+ * <p>
+ * The phases are expanding the row, resolving its components, checking the
+ * link, making the link and adding it to the target.
+ *
+ * @author Will Chapman
+ */
+public final class LinkMetrics {
+
+    public final LatencyHistogram expand = new LatencyHistogram();
+    public final LatencyHistogram resolve = new LatencyHistogram();
+    public final LatencyHistogram checkLink = new LatencyHistogram();
+    public final LatencyHistogram makeLink = new LatencyHistogram();
+    public final LatencyHistogram add = new LatencyHistogram();
+
+    public void reset() {
+        expand.reset();
+        resolve.reset();
+        checkLink.reset();
+        makeLink.reset();
+        add.reset();
+    }
+}
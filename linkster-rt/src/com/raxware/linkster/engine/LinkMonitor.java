@@ -0,0 +1,52 @@
+/*
+ Licensed to the Apache Software Foundation (ASF) under one
+ or more contributor license agreements.  See the NOTICE file
+ distributed with this work for additional information
+ regarding copyright ownership.  The ASF licenses this file
+ to you under the Apache License, Version 2.0 (the
+ "License"); you may not use this file except in compliance
+ with the License.  You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing,
+ software distributed under the License is distributed on an
+ "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ KIND, either express or implied.  See the License for the
+ specific language governing permissions and limitations
+ under the License.
+ */
+package com.raxware.linkster.engine;
+
+/**
+ * Lets whoever started a job watch its progress and stop it.  The engine
+ * reports and checks for cancellation between batches of rows, never in the
+ * middle of one.
+ *
+ * @author Will Chapman
+ */
+public interface LinkMonitor {
+
+    /**
+     * A monitor for jobs that nobody is watching.
+     */
+    LinkMonitor NONE = new LinkMonitor() {
+        public boolean isCanceled() {
+            return false;
+        }
+
+        public void progress(long done, long total) {
+        }
+    };
+
+    /**
+     * @return true if the job should stop at the end of the current batch
+     */
+    boolean isCanceled();
+
+    /**
+     * @param done  rows processed so far
+     * @param total rows in the job
+     */
+    void progress(long done, long total);
+}
@@ -0,0 +1,105 @@
+/*
+ Licensed to the Apache Software Foundation (ASF) under one
+ or more contributor license agreements.  See the NOTICE file
+ distributed with this work for additional information
+ regarding copyright ownership.  The ASF licenses this file
+ to you under the Apache License, Version 2.0 (the
+ "License"); you may not use this file except in compliance
+ with the License.  You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing,
+ software distributed under the License is distributed on an
+ "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ KIND, either express or implied.  See the License for the
+ specific language governing permissions and limitations
+ under the License.
+ */
+package com.raxware.linkster.engine;
+
+import javax.baja.sys.BComponent;
+import javax.baja.sys.Property;
+import javax.baja.sys.SlotCursor;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Picks the name each new link is added under.
+ * <p>
+ * Adding with a trailing <code>?</code> makes the framework probe
+ * <code>name</code>, <code>name1</code>, <code>name2</code>... until one is
+ * free.  That probe gets longer with every link into the same target, so a
+ * target fed by hundreds of sources costs quadratic time over the job.
+ * Instead, the highest suffix already in use is found once per target and
+ * base name, and a counter hands out the next one from then on.  Names
+ * follow the same <code>name</code>, <code>name1</code>, <code>name2</code>
+ * pattern, so links from a job can still be found by name.
+ *
+ * @author Will Chapman
+ */
+class LinkNamer {
+
+    private final Map<String, int[]> next = new HashMap<String, int[]>();
+
+    /**
+     * @param to   the target the link is added to
+     * @param base the name wanted, used as is if it is free
+     * @return a name not yet used on the target
+     */
+    String name(BComponent to, String base) {
+        String key = to.getHandle() + "\u0000" + base;
+        int[] counter = next.get(key);
+        if (counter == null) {
+            counter = new int[]{firstFree(to, base)};
+            next.put(key, counter);
+        }
+
+        // something other than this job may have added a slot since;
+        // one lookup by name is enough to tell
+        String name;
+        do {
+            name = counter[0] == 0 ? base : base + counter[0];
+            counter[0]++;
+        } while (to.getSlot(name) != null);
+        return name;
+    }
+
+    /**
+     * @return 0 if the base name is free, otherwise one past the highest suffix in use
+     */
+    private static int firstFree(BComponent to, String base) {
+        if (to.getSlot(base) == null) {
+            return 0;
+        }
+
+        int max = 0;
+        SlotCursor<Property> c = to.getProperties();
+        while (c.next()) {
+            String name = c.property().getName();
+            if (name.length() > base.length() && name.startsWith(base)) {
+                int suffix = suffixOf(name, base.length());
+                if (suffix > max) {
+                    max = suffix;
+                }
+            }
+        }
+        return max + 1;
+    }
+
+    /**
+     * @return the number after the base name, or -1 if the rest is not all digits
+     */
+    private static int suffixOf(String name, int from) {
+        int n = 0;
+        for (int i = from; i < name.length(); i++) {
+            char ch = name.charAt(i);
+            if (ch < '0' || ch > '9' || n > (Integer.MAX_VALUE - 9) / 10) {
+                return -1;
+            }
+            n = n * 10 + (ch - '0');
+        }
+        return n;
+    }
+}
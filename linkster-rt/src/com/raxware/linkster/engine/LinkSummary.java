@@ -0,0 +1,203 @@
+/*
+ Licensed to the Apache Software Foundation (ASF) under one
+ or more contributor license agreements.  See the NOTICE file
+ distributed with this work for additional information
+ regarding copyright ownership.  The ASF licenses this file
+ to you under the Apache License, Version 2.0 (the
+ "License"); you may not use this file except in compliance
+ with the License.  You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing,
+ software distributed under the License is distributed on an
+ "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ KIND, either express or implied.  See the License for the
+ specific language governing permissions and limitations
+ under the License.
+ */
+package com.raxware.linkster.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tallies what happened during a link job so the whole job can be reported
+ * back in one message instead of one line per row.
+ * <p>
+ * Only the first <code>MAX_SAMPLES</code> problem rows are kept word for word;
+ * after that they are only counted.
+ *
+ * @author Will Chapman
+ */
+public class LinkSummary {
+
+    static final int MAX_SAMPLES = 100;
+
+    private final long startMillis = System.currentTimeMillis();
+    private long endMillis;
+
+    private long rows;
+    private long created;
+    private long conversions;
+    private long invalid;
+    private long unresolved;
+    private long failed;
+    private long present;
+    private long stale;
+    private long removed;
+    private boolean canceled;
+    private final List<String> samples = new ArrayList<String>();
+
+    public synchronized void linked(boolean conversion) {
+        rows++;
+        created++;
+        if (conversion) {
+            conversions++;
+        }
+    }
+
+    public synchronized void invalid(String row, String reason) {
+        rows++;
+        invalid++;
+        sample(" Invalid Link - " + row + " " + reason);
+    }
+
+    public synchronized void unresolved(String row, String reason) {
+        rows++;
+        unresolved++;
+        sample(" ERROR - Unable to resolve components. " + row + " " + reason);
+    }
+
+    public synchronized void failed(String row, String reason) {
+        rows++;
+        failed++;
+        sample(" An error occurred while attempting to add the link. " + row + " ERROR:" + reason);
+    }
+
+    /**
+     * Records a row whose link the target already has.
+     */
+    public synchronized void present() {
+        rows++;
+        present++;
+    }
+
+    /**
+     * Records how many stale links reconciling found, whether or not they
+     * are removed.
+     */
+    public synchronized void stale(long n) {
+        stale += n;
+    }
+
+    /**
+     * Records a stale link that was removed.  Not a row of the plan, so the
+     * row count is left alone.
+     */
+    public synchronized void removed() {
+        removed++;
+    }
+
+    public synchronized void removeFailed(String link, String reason) {
+        failed++;
+        sample(" An error occurred while attempting to remove the stale link " + link + " ERROR:" + reason);
+    }
+
+    private void sample(String line) {
+        if (samples.size() < MAX_SAMPLES) {
+            samples.add(line);
+        }
+    }
+
+    /**
+     * Records that the job was stopped before every row was processed.
+     */
+    public synchronized void cancel() {
+        canceled = true;
+    }
+
+    public synchronized boolean isCanceled() {
+        return canceled;
+    }
+
+    /**
+     * Marks the job as done, stopping the clock.
+     */
+    public synchronized void finish() {
+        endMillis = System.currentTimeMillis();
+    }
+
+    public synchronized long getRows() {
+        return rows;
+    }
+
+    public synchronized long getCreated() {
+        return created;
+    }
+
+    public synchronized long getConversions() {
+        return conversions;
+    }
+
+    public synchronized long getInvalid() {
+        return invalid;
+    }
+
+    public synchronized long getUnresolved() {
+        return unresolved;
+    }
+
+    public synchronized long getFailed() {
+        return failed;
+    }
+
+    public synchronized long getPresent() {
+        return present;
+    }
+
+    public synchronized long getStale() {
+        return stale;
+    }
+
+    public synchronized long getRemoved() {
+        return removed;
+    }
+
+    /**
+     * @return how long the job took, or has taken so far
+     */
+    public synchronized long getElapsedMillis() {
+        return (endMillis == 0 ? System.currentTimeMillis() : endMillis) - startMillis;
+    }
+
+    public synchronized String toString() {
+        long elapsed = getElapsedMillis();
+        StringBuilder sb = new StringBuilder();
+        sb.append("Processed ").append(rows).append(" rows in ").append(elapsed).append(" ms");
+        if (elapsed > 0) {
+            sb.append(" (").append(rows * 1000 / elapsed).append(" rows/sec)");
+        }
+        if (canceled) {
+            sb.append(" - CANCELED");
+        }
+        sb.append('\n');
+        sb.append("   Links created: ").append(created).append(" (").append(conversions).append(" conversion)\n");
+        if (present > 0 || stale > 0) {
+            sb.append("   Existing:      ").append(present).append('\n');
+            sb.append("   Stale found:   ").append(stale).append('\n');
+            sb.append("   Stale removed: ").append(removed).append('\n');
+        }
+        sb.append("   Invalid:       ").append(invalid).append('\n');
+        sb.append("   Unresolved:    ").append(unresolved).append('\n');
+        sb.append("   Failed:        ").append(failed);
+        for (int i = 0; i < samples.size(); i++) {
+            sb.append('\n').append(samples.get(i));
+        }
+        long problems = invalid + unresolved + failed;
+        if (problems > samples.size()) {
+            sb.append("\n ... ").append(problems - samples.size()).append(" more");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ Licensed to the Apache Software Foundation (ASF) under one
+ or more contributor license agreements.  See the NOTICE file
+ distributed with this work for additional information
+ regarding copyright ownership.  The ASF licenses this file
+ to you under the Apache License, Version 2.0 (the
+ "License"); you may not use this file except in compliance
+ with the License.  You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing,
+ software distributed under the License is distributed on an
+ "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ KIND, either express or implied.  See the License for the
+ specific language governing permissions and limitations
+ under the License.
+ */
+package com.raxware.linkster.engine;
+
+import com.raxware.linkster.qglobber.CompiledTemplate;
+import com.raxware.linkster.qglobber.OrdBuffer;
+
+import javax.baja.security.BPermissions;
+import javax.baja.sys.BAbsTime;
+import javax.baja.sys.BComponent;
+import javax.baja.sys.Context;
+import javax.baja.sys.Slot;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Checks a plan before it is linked: both sides populated and the same size
+ * (or, for a join, pairing at least one row), every ord resolves, the user
+ * can read and write it and the slot exists.
+ * <p>
+ * Runs in the station and records the handle of every component it resolves
+ * in a <code>ResolvedPlan</code>, so the link that usually follows does not
+ * have to resolve anything again.
+ * <p>
+ * The report does not list every row.  Like a dry run's, it counts the rows
+ * that were fine and each kind of problem, and keeps the first few rows and a
+ * few samples of each problem word for word.
+ *
+ * @author Will Chapman
+ */
+public class PlanAnalyzer {
+
+    private final Context cx;
+    private final ComponentResolver resolver;
+    private LinkMonitor monitor = LinkMonitor.NONE;
+    private String[] fromSlots;
+    private String[] toSlots;
+
+    /**
+     * @param base what the ords are resolved against
+     * @param cx   the context of the user running the analysis
+     */
+    public PlanAnalyzer(BComponent base, Context cx) {
+        this.cx = cx;
+        this.resolver = new ComponentResolver(base, cx);
+    }
+
+    /**
+     * @param monitor told about progress between batches, and asked whether to stop
+     */
+    public void setMonitor(LinkMonitor monitor) {
+        this.monitor = monitor;
+    }
+
+    /**
+     * @param slotPairs the "from" slots and the "to" slots to check on every
+     *                  component, or null to check the one slot of each row
+     */
+    public void setSlotPairs(String[][] slotPairs) {
+        this.fromSlots = slotPairs == null ? null : slotPairs[0];
+        this.toSlots = slotPairs == null ? null : slotPairs[1];
+    }
+
+    /**
+     * @param key     identifies the plan
+     * @param pairing both sides and how their rows are paired
+     * @param report  where to write the same report the tool view shows
+     * @return the handles of every component in the plan
+     * @throws IllegalArgumentException if the plan can not be linked
+     * @throws CancellationException     if the monitor asked to stop
+     */
+    public ResolvedPlan analyze(String key, RowPairing pairing, StringBuilder report) {
+        CompiledTemplate from = pairing.getFrom();
+        CompiledTemplate to = pairing.getTo();
+        report.append(BAbsTime.now()).append('\n');
+        report.append("Analyzing started...\n");
+
+        if (from.isEmpty() || to.isEmpty()) {
+            throw new IllegalArgumentException("One or both of the lists are empty");
+        }
+        report.append("   Both lists are populated... done\n");
+
+        if (pairing.isPositional()) {
+            pairing.size(); // throws if the sides do not match
+            report.append("   Both lists are equal in size... done\n");
+        } else {
+            if (pairing.size() == 0) {
+                throw new IllegalArgumentException("Join (" + pairing.getSpec() + ") pairs no rows");
+            }
+            report.append("   Join (").append(pairing.getSpec()).append(") pairs ")
+                    .append(pairing.size()).append(" rows... done\n");
+        }
+
+        ResolvedPlan plan = new ResolvedPlan(key, pairing);
+        report.append("   Checking generated ords \"From\"...\n");
+        checkOrds(from, fromSlots, plan.fromHandles, 0, from.size() + to.size(), report);
+        report.append("   Checking generated ords \"To\"...\n");
+        checkOrds(to, toSlots, plan.toHandles, from.size(), from.size() + to.size(), report);
+
+        report.append("Check complete");
+        return plan;
+    }
+
+    /**
+     * @param side    the side to check
+     * @param slots   the slots every component must have, or null for the slot of each row
+     * @param handles where to record the handles
+     * @param offset  rows already checked on the other side, for progress
+     * @param total   rows on both sides, for progress
+     * @param report  where to write
+     */
+    private void checkOrds(CompiledTemplate side, String[] slots, Object[] handles, long offset, long total, StringBuilder report) {
+        int[] coords = new int[side.getDimensions()];
+        OrdBuffer buf = side.newBuffer();
+        Tally tally = new Tally();
+        side.first(coords);
+        int i = 0;
+        do {
+            String thisOrdString = side.render(coords, buf).toString();
+
+            // the string consists of the ord, followed by a period
+            // then the slot
+            int dot = thisOrdString.lastIndexOf('.');
+            String ord = dot < 0 ? "" : thisOrdString.substring(0, dot);
+            String slot = thisOrdString.substring(dot + 1);
+            if (ord.length() <= 0 || slot.length() <= 0) {
+                throw new IllegalArgumentException("Could not parse ord (" + thisOrdString + ")");
+            }
+
+            BComponent current = resolver.resolve(ord);
+            handles[i++] = current.getHandle();
+
+            BPermissions perms = current.getPermissions(cx);
+            boolean rw = perms.hasOperatorRead() && perms.hasOperatorWrite();
+            String slotCheck = slots == null ? checkSlot(current, slot) : checkSlots(current, slots);
+            String kind = !rw ? DryRunReport.PERMISSION : slotCheck.contains(" DNE]") ? DryRunReport.MISSING_SLOT : null;
+            String line = null;
+            if (tally.wants(kind)) {
+                line = "Resolving \"" + ord + "\" " + (rw ? "[R/W]" : "[Perm Error]")
+                        + " [" + current.getHandleOrd() + "]" + slotCheck;
+            }
+            tally.add(kind, line);
+
+            long done = offset + i;
+            if (done % LinkEngine.BATCH == 0 || done == total) {
+                monitor.progress(done, total);
+                if (done < total && monitor.isCanceled()) {
+                    throw new CancellationException("Analysis canceled after " + done + " of " + total + " ords");
+                }
+            }
+        } while (side.increment(coords));
+        tally.appendTo(report);
+    }
+
+    private static String checkSlot(BComponent comp, String slot) {
+        Slot slotObj = comp.getSlot(slot);
+        return (slotObj != null) ? " [" + slot + " ok]" : " [" + slot + " DNE]";
+    }
+
+    private static String checkSlots(BComponent comp, String[] slots) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < slots.length; i++) {
+            // a slot linked to several others is only listed once
+            if (indexOf(slots, slots[i]) == i) {
+                sb.append(checkSlot(comp, slots[i]));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static int indexOf(String[] a, String s) {
+        for (int i = 0; i < a.length; i++) {
+            if (a[i].equals(s)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * What one side's check found: the first few rows as they resolved, then
+     * a count of the rows that were fine and of each kind of problem with a
+     * few samples, so the report stays the same size however big the plan.
+     */
+    private static final class Tally {
+
+        static final int SAMPLE_ROWS = 3;
+
+        private final List<String> first = new ArrayList<String>();
+        private final Map<String, List<String>> samples = new LinkedHashMap<String, List<String>>();
+        private final Map<String, Long> counts = new HashMap<String, Long>();
+        private long rows;
+        private long ok;
+
+        /**
+         * @return true if the next row of this kind is kept word for word,
+         * so the line is only built when it is
+         */
+        boolean wants(String kind) {
+            if (first.size() < SAMPLE_ROWS) {
+                return true;
+            }
+            if (kind == null) {
+                return false;
+            }
+            List<String> kept = samples.get(kind);
+            return kept == null || kept.size() < DryRunReport.MAX_SAMPLES;
+        }
+
+        /**
+         * @param kind the problem, or null if the row is fine
+         * @param line the row as resolved, or null if it is not wanted
+         */
+        void add(String kind, String line) {
+            rows++;
+            if (line != null && first.size() < SAMPLE_ROWS) {
+                first.add(line);
+            }
+            if (kind == null) {
+                ok++;
+                return;
+            }
+            Long n = counts.get(kind);
+            counts.put(kind, n == null ? 1L : n + 1);
+            List<String> kept = samples.get(kind);
+            if (kept == null) {
+                kept = new ArrayList<String>();
+                samples.put(kind, kept);
+            }
+            if (line != null && kept.size() < DryRunReport.MAX_SAMPLES) {
+                kept.add(line);
+            }
+        }
+
+        void appendTo(StringBuilder report) {
+            for (int i = 0; i < first.size(); i++) {
+                report.append("    ").append(first.get(i)).append('\n');
+            }
+            if (rows > first.size()) {
+                report.append("    ... ").append(rows - first.size()).append(" more\n");
+            }
+            report.append("    ").append(ok).append(" of ").append(rows).append(" resolved with read/write and every slot\n");
+            for (Map.Entry<String, List<String>> e : samples.entrySet()) {
+                report.append("    ").append(counts.get(e.getKey())).append(" x ").append(e.getKey()).append('\n');
+                for (String line : e.getValue()) {
+                    report.append("       ").append(line).append('\n');
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ Licensed to the Apache Software Foundation (ASF) under one
+ or more contributor license agreements.  See the NOTICE file
+ distributed with this work for additional information
+ regarding copyright ownership.  The ASF licenses this file
+ to you under the Apache License, Version 2.0 (the
+ "License"); you may not use this file except in compliance
+ with the License.  You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing,
+ software distributed under the License is distributed on an
+ "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ KIND, either express or implied.  See the License for the
+ specific language governing permissions and limitations
+ under the License.
+ */
+package com.raxware.linkster.engine;
+
+import com.raxware.linkster.qglobber.CompiledTemplate;
+
+/**
+ * The result of analyzing a plan: the handle of every component on both
+ * sides, row for row, and how the rows of the two sides are paired.
+ * <p>
+ * Linking a plan that has just been analyzed can then find each component by
+ * handle instead of walking its path a second time.  A handle follows its
+ * component when it is renamed or moved, so the component found is only used
+ * if it is still at the path the plan names; one that was moved, renamed or
+ * removed since the analysis has its path resolved again.
+ *
+ * @author Will Chapman
+ */
+public class ResolvedPlan {
+
+    private final String key;
+    private final RowPairing pairing;
+    final Object[] fromHandles;
+    final Object[] toHandles;
+
+    /**
+     * @param key     identifies the plan this was made from
+     * @param pairing both sides and how their rows are paired
+     */
+    ResolvedPlan(String key, RowPairing pairing) {
+        CompiledTemplate from = pairing.getFrom();
+        CompiledTemplate to = pairing.getTo();
+        if (from.size() > Integer.MAX_VALUE || to.size() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many rows (" + Math.max(from.size(), to.size()) + ")");
+        }
+        this.key = key;
+        this.pairing = pairing;
+        this.fromHandles = new Object[(int) from.size()];
+        this.toHandles = new Object[(int) to.size()];
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public CompiledTemplate getFrom() {
+        return pairing.getFrom();
+    }
+
+    public CompiledTemplate getTo() {
+        return pairing.getTo();
+    }
+
+    public RowPairing getPairing() {
+        return pairing;
+    }
+}
@@ -0,0 +1,314 @@
+/*
+ Licensed to the Apache Software Foundation (ASF) under one
+ or more contributor license agreements.  See the NOTICE file
+ distributed with this work for additional information
+ regarding copyright ownership.  The ASF licenses this file
+ to you under the Apache License, Version 2.0 (the
+ "License"); you may not use this file except in compliance
+ with the License.  You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing,
+ software distributed under the License is distributed on an
+ "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ KIND, either express or implied.  See the License for the
+ specific language governing permissions and limitations
+ under the License.
+ */
+package com.raxware.linkster.engine;
+
+import com.raxware.linkster.qglobber.CompiledTemplate;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Decides which row of the "from" side is linked to which row of the "to"
+ * side.
+ * <p>
+ * By default rows are paired by position: row i to row i, and both sides must
+ * be the same size.  A join pairs rows by their coordinates instead, the
+ * values each placeholder took when the row was expanded.  The join is
+ * written as the placeholders that must match, numbered from 1 on each side:
+ * <ul>
+ * <li><code>1=1</code> - AHU <code>{[]}</code> 1..3 to VAV <code>{[]}_{[]}</code>
+ * 1..3,1..40 links each AHU to its 40 VAVs (one to many)</li>
+ * <li><code>1=1,2=2</code> - matches on both placeholders (one to one, in any order)</li>
+ * <li><code>*</code> - every "from" row to every "to" row, such as 40 VAVs into
+ * one average block (many to one)</li>
+ * </ul>
+ * The join is a hash join: the "to" side is indexed by its matching
+ * coordinates once, then each "from" row looks up its partners, so building
+ * the pairs takes time in proportion to the rows and pairs, not their product.
+ *
+ * @author Will Chapman
+ */
+public final class RowPairing {
+
+    private final CompiledTemplate from;
+    private final CompiledTemplate to;
+    private final String spec;
+    private final int[] fromDims;
+    private final int[] toDims;
+    private Map<Key, long[]> groups;
+    private long size = -1;
+
+    private RowPairing(CompiledTemplate from, CompiledTemplate to, String spec, int[] fromDims, int[] toDims) {
+        this.from = from;
+        this.to = to;
+        this.spec = spec;
+        this.fromDims = fromDims;
+        this.toDims = toDims;
+    }
+
+    /**
+     * @param from the "from" side
+     * @param to   the "to" side
+     * @param spec the join, or empty to pair by position
+     * @return the pairing
+     * @throws IllegalArgumentException if the join can not be parsed or names
+     *                                  a placeholder a side does not have
+     */
+    public static RowPairing make(CompiledTemplate from, CompiledTemplate to, String spec) {
+        spec = spec == null ? "" : spec.replaceAll("\\s", "");
+        if (spec.length() == 0) {
+            return new RowPairing(from, to, spec, null, null);
+        }
+        if (spec.equals("*")) {
+            return new RowPairing(from, to, spec, new int[0], new int[0]);
+        }
+
+        String[] terms = spec.split(",");
+        int[] fromDims = new int[terms.length];
+        int[] toDims = new int[terms.length];
+        for (int i = 0; i < terms.length; i++) {
+            int eq = terms[i].indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("Invalid join (" + terms[i] + "), expected from=to");
+            }
+            fromDims[i] = dimension(terms[i].substring(0, eq), from, "From");
+            toDims[i] = dimension(terms[i].substring(eq + 1), to, "To");
+        }
+        return new RowPairing(from, to, spec, fromDims, toDims);
+    }
+
+    private static int dimension(String text, CompiledTemplate side, String name) {
+        int dim;
+        try {
+            dim = Integer.parseInt(text) - 1;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid join placeholder (" + text + ")");
+        }
+        if (dim < 0 || dim >= side.getDimensions()) {
+            throw new IllegalArgumentException("\"" + name + "\" has no placeholder " + text
+                    + " (it has " + side.getDimensions() + ")");
+        }
+        return dim;
+    }
+
+    public CompiledTemplate getFrom() {
+        return from;
+    }
+
+    public CompiledTemplate getTo() {
+        return to;
+    }
+
+    /**
+     * @return true if rows are paired by position
+     */
+    public boolean isPositional() {
+        return fromDims == null;
+    }
+
+    /**
+     * @return the join as given, without whitespace, or empty when pairing by position
+     */
+    public String getSpec() {
+        return spec;
+    }
+
+    /**
+     * @return the number of pairs
+     * @throws IllegalArgumentException if pairing by position and the sides are not the same size
+     */
+    public synchronized long size() {
+        if (size < 0) {
+            if (isPositional()) {
+                if (from.size() != to.size()) {
+                    throw new IllegalArgumentException("Sides do not match (" + from.size() + " != " + to.size() + ")");
+                }
+                size = from.size();
+            } else {
+                long n = 0;
+                Cursor c = new JoinCursor(build());
+                while (c.nextGroup()) {
+                    n += c.groupSize();
+                }
+                size = n;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return a cursor over the pairs, in "from" order
+     */
+    public Cursor cursor() {
+        if (isPositional()) {
+            size();
+            return new Cursor();
+        }
+        return new JoinCursor(build());
+    }
+
+    /**
+     * Indexes the "to" side by its matching coordinates, once.
+     */
+    private synchronized Map<Key, long[]> build() {
+        if (groups == null) {
+            Map<Key, long[]> map = new HashMap<Key, long[]>();
+            if (!to.isEmpty()) {
+                int[] coords = new int[to.getDimensions()];
+                to.first(coords);
+                long index = 0;
+                do {
+                    Key key = new Key(project(coords, toDims, new int[toDims.length]));
+                    long[] group = map.get(key);
+                    if (group == null) {
+                        // slot 0 holds the count
+                        group = new long[4];
+                    } else if (group[0] + 1 == group.length) {
+                        group = Arrays.copyOf(group, group.length * 2);
+                    }
+                    group[(int) ++group[0]] = index++;
+                    map.put(key, group);
+                } while (to.increment(coords));
+            }
+            groups = map;
+        }
+        return groups;
+    }
+
+    private static int[] project(int[] coords, int[] dims, int[] dst) {
+        for (int i = 0; i < dims.length; i++) {
+            dst[i] = coords[dims[i]];
+        }
+        return dst;
+    }
+
+    /**
+     * Steps through the pairs.  Pairing by position needs no index at all.
+     */
+    public class Cursor {
+
+        long fromIndex = -1;
+        long toIndex;
+
+        /**
+         * @return false once every pair has been visited
+         */
+        public boolean next() {
+            if (fromIndex + 1 >= from.size()) {
+                return false;
+            }
+            toIndex = ++fromIndex;
+            return true;
+        }
+
+        public long getFromIndex() {
+            return fromIndex;
+        }
+
+        public long getToIndex() {
+            return toIndex;
+        }
+
+        boolean nextGroup() {
+            return next();
+        }
+
+        long groupSize() {
+            return 1;
+        }
+    }
+
+    private final class JoinCursor extends Cursor {
+
+        private final Map<Key, long[]> groups;
+        private final int[] coords = new int[from.getDimensions()];
+        private final Key probe = new Key(new int[fromDims.length]);
+        private boolean more;
+        private long[] group;
+        private int pos;
+
+        JoinCursor(Map<Key, long[]> groups) {
+            this.groups = groups;
+            this.more = !from.isEmpty();
+            from.first(coords);
+        }
+
+        public boolean next() {
+            while (group == null || pos >= group[0]) {
+                if (!nextGroup()) {
+                    return false;
+                }
+            }
+            toIndex = group[++pos];
+            return true;
+        }
+
+        /**
+         * Moves to the next "from" row and looks up its partners.
+         */
+        boolean nextGroup() {
+            if (!more) {
+                return false;
+            }
+            if (fromIndex >= 0) {
+                more = from.increment(coords);
+                if (!more) {
+                    return false;
+                }
+            }
+            fromIndex++;
+            project(coords, fromDims, probe.values);
+            probe.rehash();
+            group = groups.get(probe);
+            pos = 0;
+            return true;
+        }
+
+        long groupSize() {
+            return group == null ? 0 : group[0];
+        }
+    }
+
+    /**
+     * Matching coordinates, usable as a hash key.
+     */
+    private static final class Key {
+
+        final int[] values;
+        private int hash;
+
+        Key(int[] values) {
+            this.values = values;
+            rehash();
+        }
+
+        void rehash() {
+            hash = Arrays.hashCode(values);
+        }
+
+        public int hashCode() {
+            return hash;
+        }
+
+        public boolean equals(Object o) {
+            return o instanceof Key && Arrays.equals(values, ((Key) o).values);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ Licensed to the Apache Software Foundation (ASF) under one
+ or more contributor license agreements.  See the NOTICE file
+ distributed with this work for additional information
+ regarding copyright ownership.  The ASF licenses this file
+ to you under the Apache License, Version 2.0 (the
+ "License"); you may not use this file except in compliance
+ with the License.  You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing,
+ software distributed under the License is distributed on an
+ "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ KIND, either express or implied.  See the License for the
+ specific language governing permissions and limitations
+ under the License.
+ */
+package com.raxware.linkster.planfile;
+
+/**
+ * One link of a plan file: the source component's ord and slot, and the
+ * target component's ord and slot.
+ *
+ * @author Will Chapman
+ */
+public final class LinkRecord {
+
+    private final String sourceOrd;
+    private final String sourceSlot;
+    private final String targetOrd;
+    private final String targetSlot;
+
+    public LinkRecord(String sourceOrd, String sourceSlot, String targetOrd, String targetSlot) {
+        this.sourceOrd = sourceOrd;
+        this.sourceSlot = sourceSlot;
+        this.targetOrd = targetOrd;
+        this.targetSlot = targetSlot;
+    }
+
+    public String getSourceOrd() {
+        return sourceOrd;
+    }
+
+    public String getSourceSlot() {
+        return sourceSlot;
+    }
+
+    public String getTargetOrd() {
+        return targetOrd;
+    }
+
+    public String getTargetSlot() {
+        return targetSlot;
+    }
+
+    String get(int field) {
+        switch (field) {
+            case 0:
+                return sourceOrd;
+            case 1:
+                return sourceSlot;
+            case 2:
+                return targetOrd;
+            default:
+                return targetSlot;
+        }
+    }
+
+    public boolean equals(Object o) {
+        if (!(o instanceof LinkRecord)) {
+            return false;
+        }
+        LinkRecord r = (LinkRecord) o;
+        return sourceOrd.equals(r.sourceOrd) && sourceSlot.equals(r.sourceSlot)
+                && targetOrd.equals(r.targetOrd) && targetSlot.equals(r.targetSlot);
+    }
+
+    public int hashCode() {
+        return ((sourceOrd.hashCode() * 31 + sourceSlot.hashCode()) * 31 + targetOrd.hashCode()) * 31 + targetSlot.hashCode();
+    }
+
+    public String toString() {
+        return sourceOrd + "." + sourceSlot + " -> " + targetOrd + "." + targetSlot;
+    }
+}
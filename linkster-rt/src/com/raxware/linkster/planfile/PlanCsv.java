@@ -0,0 +1,181 @@
+/*
+ Licensed to the Apache Software Foundation (ASF) under one
+ or more contributor license agreements.  See the NOTICE file
+ distributed with this work for additional information
+ regarding copyright ownership.  The ASF licenses this file
+ to you under the Apache License, Version 2.0 (the
+ "License"); you may not use this file except in compliance
+ with the License.  You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing,
+ software distributed under the License is distributed on an
+ "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ KIND, either express or implied.  See the License for the
+ specific language governing permissions and limitations
+ under the License.
+ */
+package com.raxware.linkster.planfile;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converts between link plan files and CSV, one link per line:
+ * <pre>
+ * sourceOrd,sourceSlot,targetOrd,targetSlot
+ * station:|slot:/Floor1/VAV1,out,station:|slot:/Floor1/VAV1/Damper,in10
+ * </pre>
+ * Fields holding a comma, a quote or a line break are quoted, with quotes
+ * doubled, as in RFC 4180.  The header line is written on export and skipped
+ * on import.  Both directions stream, one line at a time.
+ *
+ * @author Will Chapman
+ */
+public final class PlanCsv {
+
+    static final String HEADER = "sourceOrd,sourceSlot,targetOrd,targetSlot";
+
+    private PlanCsv() {
+    }
+
+    /**
+     * @param csv  the CSV to read
+     * @param plan the plan file to write, replaced if it exists
+     * @return the number of links imported
+     * @throws IOException if either file can not be used, or a line does not have four fields
+     */
+    public static long importCsv(Path csv, Path plan) throws IOException {
+        FileChannel in = FileChannel.open(csv, StandardOpenOption.READ);
+        try (BufferedReader reader = new BufferedReader(Channels.newReader(in, PlanFile.UTF8.newDecoder(), -1));
+             PlanFileWriter writer = new PlanFileWriter(plan)) {
+            List<String> fields = new ArrayList<String>(PlanFile.FIELDS);
+            long line = 0;
+            while (readRecord(reader, fields)) {
+                line++;
+                if (line == 1 && fields.size() == PlanFile.FIELDS && HEADER.equals(join(fields))) {
+                    continue;
+                }
+                if (fields.size() == 1 && fields.get(0).isEmpty()) {
+                    continue;
+                }
+                if (fields.size() != PlanFile.FIELDS) {
+                    throw new IOException("Line " + line + " has " + fields.size() + " fields, expected "
+                            + PlanFile.FIELDS);
+                }
+                writer.write(fields.get(0), fields.get(1), fields.get(2), fields.get(3));
+            }
+            return writer.size();
+        }
+    }
+
+    /**
+     * @param plan the plan file to read
+     * @param csv  the CSV to write, replaced if it exists
+     * @return the number of links exported
+     * @throws IOException if either file can not be used
+     */
+    public static long exportCsv(Path plan, Path csv) throws IOException {
+        FileChannel out = FileChannel.open(csv, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        try (PlanFileReader reader = new PlanFileReader(plan);
+             BufferedWriter writer = new BufferedWriter(Channels.newWriter(out, PlanFile.UTF8.newEncoder(), -1))) {
+            writer.write(HEADER);
+            writer.write("\r\n");
+            long n = 0;
+            for (LinkRecord r = reader.next(); r != null; r = reader.next()) {
+                for (int i = 0; i < PlanFile.FIELDS; i++) {
+                    if (i > 0) {
+                        writer.write(',');
+                    }
+                    writeField(writer, r.get(i));
+                }
+                writer.write("\r\n");
+                n++;
+            }
+            return n;
+        }
+    }
+
+    private static void writeField(BufferedWriter writer, String field) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < field.length() && !quote; i++) {
+            char c = field.charAt(i);
+            quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+        }
+        if (!quote) {
+            writer.write(field);
+            return;
+        }
+        writer.write('"');
+        writer.write(field.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    /**
+     * Reads the fields of one record, which may span lines if a quoted field
+     * holds a line break.
+     *
+     * @return false at the end of the input
+     */
+    static boolean readRecord(BufferedReader reader, List<String> fields) throws IOException {
+        fields.clear();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        int c = reader.read();
+        if (c < 0) {
+            return false;
+        }
+        while (true) {
+            if (quoted) {
+                if (c < 0) {
+                    throw new IOException("Unterminated quoted field");
+                }
+                if (c == '"') {
+                    c = reader.read();
+                    if (c != '"') {
+                        quoted = false;
+                        continue;
+                    }
+                }
+                field.append((char) c);
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c < 0 || c == '\n' || c == '\r') {
+                fields.add(field.toString());
+                if (c == '\r') {
+                    reader.mark(1);
+                    if (reader.read() != '\n') {
+                        reader.reset();
+                    }
+                }
+                return true;
+            } else {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+    }
+
+    private static String join(List<String> fields) {
+        StringBuilder sb = new StringBuilder();
+        for (String f : fields) {
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+            sb.append(f);
+        }
+        return sb.toString();
+    }
+}
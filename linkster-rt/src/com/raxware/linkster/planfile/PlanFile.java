@@ -0,0 +1,94 @@
+/*
+ Licensed to the Apache Software Foundation (ASF) under one
+ or more contributor license agreements.  See the NOTICE file
+ distributed with this work for additional information
+ regarding copyright ownership.  The ASF licenses this file
+ to you under the Apache License, Version 2.0 (the
+ "License"); you may not use this file except in compliance
+ with the License.  You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing,
+ software distributed under the License is distributed on an
+ "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ KIND, either express or implied.  See the License for the
+ specific language governing permissions and limitations
+ under the License.
+ */
+package com.raxware.linkster.planfile;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * The layout of a link plan file, shared by the reader and the writer.
+ * <p>
+ * All numbers are big endian.
+ * <pre>
+ * header   magic "LNKP", u16 version, u16 reserved, i64 records, i32 blocks,
+ *          i64 index offset, i32 CRC-32 of the 28 bytes before it
+ * block    i32 records, i32 payload length, i32 CRC-32 of the payload, payload
+ * index    i32 blocks, then per block i64 first record and i64 offset,
+ *          then i32 CRC-32 of everything before it in the index
+ * </pre>
+ * A block holds up to <code>BLOCK_RECORDS</code> records.  Each record is its
+ * four fields (source ord, source slot, target ord, target slot), and each
+ * field is written as the number of characters it shares with the same field
+ * of the record before it, then the UTF-8 bytes of the rest, both lengths as
+ * varints.  Rows of a plan differ by a few characters, so most of each ord is
+ * never written.  The sharing starts over at every block, so reading can
+ * start at any block the index points to.
+ *
+ * @author Will Chapman
+ */
+final class PlanFile {
+
+    static final int MAGIC = 0x4C4E4B50; // "LNKP"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int BLOCK_HEADER_SIZE = 12;
+    static final int BLOCK_RECORDS = 4096;
+    static final int FIELDS = 4;
+
+    static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private PlanFile() {
+    }
+
+    static void putVarint(ByteBuffer buf, int v) {
+        while ((v & ~0x7F) != 0) {
+            buf.put((byte) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        buf.put((byte) v);
+    }
+
+    static int getVarint(ByteBuffer buf) {
+        int v = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = buf.get();
+            v |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return v;
+            }
+        }
+        throw new IllegalStateException("Malformed varint");
+    }
+
+    /**
+     * @return how many characters the two strings start with in common,
+     * never splitting a surrogate pair
+     */
+    static int sharedPrefix(String a, String b) {
+        int n = Math.min(a.length(), b.length());
+        int i = 0;
+        while (i < n && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        if (i > 0 && i < b.length() && Character.isLowSurrogate(b.charAt(i))) {
+            i--;
+        }
+        return i;
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ Licensed to the Apache Software Foundation (ASF) under one
+ or more contributor license agreements.  See the NOTICE file
+ distributed with this work for additional information
+ regarding copyright ownership.  The ASF licenses this file
+ to you under the Apache License, Version 2.0 (the
+ "License"); you may not use this file except in compliance
+ with the License.  You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing,
+ software distributed under the License is distributed on an
+ "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ KIND, either express or implied.  See the License for the
+ specific language governing permissions and limitations
+ under the License.
+ */
+package com.raxware.linkster.planfile;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Reads a link plan file one record at a time, see <code>PlanFile</code> for
+ * the layout.
+ * <p>
+ * One block is read and checked at a time, so memory does not grow with the
+ * file.  <code>seek</code> uses the index to go straight to the block holding
+ * a record, for example to pick up a job where it stopped.
+ *
+ * @author Will Chapman
+ */
+public class PlanFileReader implements Closeable {
+
+    private final FileChannel channel;
+    private final long records;
+    private final long[] blockFirst;
+    private final long[] blockOffset;
+    private final CRC32 crc = new CRC32();
+    private final ByteBuffer blockHeader = ByteBuffer.allocate(PlanFile.BLOCK_HEADER_SIZE);
+    private ByteBuffer payload = ByteBuffer.allocate(64 * 1024);
+    private final String[] previous = new String[PlanFile.FIELDS];
+
+    private int block = -1;
+    private int blockRemaining;
+    private long next;
+
+    /**
+     * @param path the file to read
+     * @throws IOException if the file can not be read, or is not a plan file
+     */
+    public PlanFileReader(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = read(0, PlanFile.HEADER_SIZE);
+            if (header.getInt() != PlanFile.MAGIC) {
+                throw new IOException("Not a link plan file");
+            }
+            int version = header.getShort();
+            if (version != PlanFile.VERSION) {
+                throw new IOException("Unsupported link plan file version (" + version + ")");
+            }
+            header.getShort();
+            records = header.getLong();
+            int blocks = header.getInt();
+            long indexOffset = header.getLong();
+            check(header, PlanFile.HEADER_SIZE - 4, header.getInt(), "header");
+            if (records < 0 || blocks < 0 || indexOffset < PlanFile.HEADER_SIZE
+                    || indexOffset + 8 + blocks * 16L > channel.size()) {
+                throw new IOException("Corrupt link plan file header");
+            }
+
+            ByteBuffer index = read(indexOffset, 4 + blocks * 16 + 4);
+            if (index.getInt() != blocks) {
+                throw new IOException("Index does not match the header");
+            }
+            blockFirst = new long[blocks];
+            blockOffset = new long[blocks];
+            for (int i = 0; i < blocks; i++) {
+                blockFirst[i] = index.getLong();
+                blockOffset[i] = index.getLong();
+            }
+            check(index, index.position(), index.getInt(), "index");
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        } catch (RuntimeException e) {
+            channel.close();
+            throw new IOException("Corrupt link plan file", e);
+        }
+    }
+
+    /**
+     * @return the number of records in the file
+     */
+    public long size() {
+        return records;
+    }
+
+    /**
+     * @return the number of blocks in the file
+     */
+    public int getBlockCount() {
+        return blockFirst.length;
+    }
+
+    /**
+     * @return the index of the record <code>next()</code> returns next
+     */
+    public long position() {
+        return next;
+    }
+
+    /**
+     * @return the next record, or null at the end of the file
+     * @throws IOException if the file can not be read or a block is corrupt
+     */
+    public LinkRecord next() throws IOException {
+        if (next >= records) {
+            return null;
+        }
+        if (blockRemaining == 0) {
+            loadBlock(block + 1);
+        }
+        try {
+            String sourceOrd = getField(0);
+            String sourceSlot = getField(1);
+            String targetOrd = getField(2);
+            String targetSlot = getField(3);
+            blockRemaining--;
+            next++;
+            return new LinkRecord(sourceOrd, sourceSlot, targetOrd, targetSlot);
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupt record " + next, e);
+        }
+    }
+
+    /**
+     * Moves to a record, so it is the one <code>next()</code> returns.
+     *
+     * @param record the index of the record
+     * @throws IOException if the file can not be read or a block is corrupt
+     */
+    public void seek(long record) throws IOException {
+        if (record < 0 || record > records) {
+            throw new IndexOutOfBoundsException("Record " + record + " of " + records);
+        }
+        if (record == records) {
+            next = records;
+            return;
+        }
+
+        int b = Arrays.binarySearch(blockFirst, record);
+        if (b < 0) {
+            b = -b - 2;
+        }
+        loadBlock(b);
+        while (next < record) {
+            next();
+        }
+    }
+
+    private void loadBlock(int b) throws IOException {
+        if (b >= blockFirst.length) {
+            throw new IOException("Record " + next + " is past the last block");
+        }
+        ByteBuffer header = readInto(blockHeader, blockOffset[b], PlanFile.BLOCK_HEADER_SIZE);
+        int count = header.getInt();
+        int length = header.getInt();
+        int expected = header.getInt();
+        if (count <= 0 || count > PlanFile.BLOCK_RECORDS || length < 0) {
+            throw new IOException("Corrupt block " + b);
+        }
+        if (payload.capacity() < length) {
+            payload = ByteBuffer.allocate(length);
+        }
+        readInto(payload, blockOffset[b] + PlanFile.BLOCK_HEADER_SIZE, length);
+        check(payload, length, expected, "block " + b);
+
+        block = b;
+        blockRemaining = count;
+        next = blockFirst[b];
+        Arrays.fill(previous, "");
+    }
+
+    private String getField(int field) {
+        int shared = PlanFile.getVarint(payload);
+        int length = PlanFile.getVarint(payload);
+        String rest = new String(payload.array(), payload.position(), length, PlanFile.UTF8);
+        payload.position(payload.position() + length);
+        String value = shared == 0 ? rest : previous[field].substring(0, shared) + rest;
+        previous[field] = value;
+        return value;
+    }
+
+    private void check(ByteBuffer buf, int length, int expected, String what) throws IOException {
+        crc.reset();
+        crc.update(buf.array(), 0, length);
+        if ((int) crc.getValue() != expected) {
+            throw new IOException("Checksum mismatch in " + what);
+        }
+    }
+
+    private ByteBuffer read(long offset, int length) throws IOException {
+        return readInto(ByteBuffer.allocate(length), offset, length);
+    }
+
+    private ByteBuffer readInto(ByteBuffer buf, long offset, int length) throws IOException {
+        buf.clear();
+        buf.limit(length);
+        long at = offset;
+        while (buf.hasRemaining()) {
+            int n = channel.read(buf, at);
+            if (n < 0) {
+                throw new IOException("Unexpected end of link plan file");
+            }
+            at += n;
+        }
+        buf.flip();
+        return buf;
+    }
+
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ Licensed to the Apache Software Foundation (ASF) under one
+ or more contributor license agreements.  See the NOTICE file
+ distributed with this work for additional information
+ regarding copyright ownership.  The ASF licenses this file
+ to you under the Apache License, Version 2.0 (the
+ "License"); you may not use this file except in compliance
+ with the License.  You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing,
+ software distributed under the License is distributed on an
+ "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ KIND, either express or implied.  See the License for the
+ specific language governing permissions and limitations
+ under the License.
+ */
+package com.raxware.linkster.planfile;
+
+import com.raxware.linkster.engine.RowPairing;
+import com.raxware.linkster.qglobber.CompiledTemplate;
+import com.raxware.linkster.qglobber.Globber;
+import com.raxware.linkster.qglobber.OrdBuffer;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Works with link plan files from the command line, without a station, so
+ * plans can be generated, checked and versioned offline.
+ * <pre>
+ * import &lt;csv&gt; &lt;plan&gt;    converts a CSV into a plan file
+ * export &lt;plan&gt; &lt;csv&gt;    converts a plan file into a CSV
+ * verify &lt;plan&gt;          reads every block and checks its checksum
+ * info &lt;plan&gt;            prints the number of links and blocks
+ * generate &lt;plan&gt; &lt;from&gt; &lt;fromRange&gt; &lt;to&gt; &lt;toRange&gt; [join]
+ *                        expands a template plan, as the tool view would
+ * </pre>
+ * For <code>generate</code>, each side is a template and a slot separated
+ * by the last period, such as <code>slot:/Floor{[]}/VAV{[]}.out</code>.
+ *
+ * @author Will Chapman
+ */
+public final class PlanFileTool {
+
+    private PlanFileTool() {
+    }
+
+    public static void main(String[] args) {
+        try {
+            System.exit(run(args));
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("ERROR - " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    static int run(String[] args) throws IOException {
+        String command = args.length > 0 ? args[0] : "";
+        if (command.equals("import") && args.length == 3) {
+            long n = PlanCsv.importCsv(Paths.get(args[1]), Paths.get(args[2]));
+            System.out.println("Imported " + n + " links into " + args[2]);
+        } else if (command.equals("export") && args.length == 3) {
+            long n = PlanCsv.exportCsv(Paths.get(args[1]), Paths.get(args[2]));
+            System.out.println("Exported " + n + " links to " + args[2]);
+        } else if (command.equals("verify") && args.length == 2) {
+            long n = verify(Paths.get(args[1]));
+            System.out.println("OK - " + n + " links");
+        } else if (command.equals("info") && args.length == 2) {
+            try (PlanFileReader reader = new PlanFileReader(Paths.get(args[1]))) {
+                System.out.println("Links:  " + reader.size());
+                System.out.println("Blocks: " + reader.getBlockCount());
+            }
+        } else if (command.equals("generate") && (args.length == 6 || args.length == 7)) {
+            RowPairing pairing = RowPairing.make(
+                    Globber.compile(args[2], Globber.splitRanges(args[3])),
+                    Globber.compile(args[4], Globber.splitRanges(args[5])),
+                    args.length == 7 ? args[6] : "");
+            long n = generate(pairing, Paths.get(args[1]));
+            System.out.println("Generated " + n + " links into " + args[1]);
+        } else {
+            System.err.println("Usage: PlanFileTool import <csv> <plan>");
+            System.err.println("       PlanFileTool export <plan> <csv>");
+            System.err.println("       PlanFileTool verify <plan>");
+            System.err.println("       PlanFileTool info <plan>");
+            System.err.println("       PlanFileTool generate <plan> <from> <fromRange> <to> <toRange> [join]");
+            return 2;
+        }
+        return 0;
+    }
+
+    /**
+     * @return the number of links read
+     * @throws IOException if the file can not be read or any block is corrupt
+     */
+    static long verify(Path plan) throws IOException {
+        try (PlanFileReader reader = new PlanFileReader(plan)) {
+            long n = 0;
+            while (reader.next() != null) {
+                n++;
+            }
+            return n;
+        }
+    }
+
+    /**
+     * Writes every pair of rows as a record, streaming, so the plan never has
+     * to fit in memory.
+     *
+     * @return the number of links written
+     * @throws IOException if the file can not be written
+     */
+    static long generate(RowPairing pairing, Path plan) throws IOException {
+        CompiledTemplate from = pairing.getFrom();
+        CompiledTemplate to = pairing.getTo();
+        int[] fromCoords = new int[from.getDimensions()];
+        int[] toCoords = new int[to.getDimensions()];
+        OrdBuffer fromBuf = from.newBuffer();
+        OrdBuffer toBuf = to.newBuffer();
+
+        try (PlanFileWriter writer = new PlanFileWriter(plan)) {
+            RowPairing.Cursor c = pairing.cursor();
+            while (c.next()) {
+                from.decode(c.getFromIndex(), fromCoords);
+                to.decode(c.getToIndex(), toCoords);
+                String fromRow = from.render(fromCoords, fromBuf).toString();
+                String toRow = to.render(toCoords, toBuf).toString();
+                int f = fromRow.lastIndexOf('.');
+                int t = toRow.lastIndexOf('.');
+                writer.write(fromRow.substring(0, Math.max(0, f)), fromRow.substring(f + 1),
+                        toRow.substring(0, Math.max(0, t)), toRow.substring(t + 1));
+            }
+            return writer.size();
+        }
+    }
+}
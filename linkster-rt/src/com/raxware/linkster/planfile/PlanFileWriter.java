@@ -0,0 +1,185 @@
+/*
+ Licensed to the Apache Software Foundation (ASF) under one
+ or more contributor license agreements.  See the NOTICE file
+ distributed with this work for additional information
+ regarding copyright ownership.  The ASF licenses this file
+ to you under the Apache License, Version 2.0 (the
+ "License"); you may not use this file except in compliance
+ with the License.  You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing,
+ software distributed under the License is distributed on an
+ "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ KIND, either express or implied.  See the License for the
+ specific language governing permissions and limitations
+ under the License.
+ */
+package com.raxware.linkster.planfile;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Writes a link plan file one record at a time, see <code>PlanFile</code> for
+ * the layout.
+ * <p>
+ * Only the block being filled is held in memory, plus two longs per block
+ * for the index, so writing a plan of a million rows takes about as much
+ * memory as writing one of a thousand.  The header is written last, when
+ * the file is closed; a file that was never closed has no valid header and
+ * will not open.
+ *
+ * @author Will Chapman
+ */
+public class PlanFileWriter implements Closeable {
+
+    private final FileChannel channel;
+    private ByteBuffer payload = ByteBuffer.allocate(64 * 1024);
+    private final ByteBuffer blockHeader = ByteBuffer.allocate(PlanFile.BLOCK_HEADER_SIZE);
+    private final String[] previous = new String[PlanFile.FIELDS];
+    private final CRC32 crc = new CRC32();
+
+    private long records;
+    private int blockRecords;
+    private long position = PlanFile.HEADER_SIZE;
+    private long[] blockFirst = new long[64];
+    private long[] blockOffset = new long[64];
+    private int blocks;
+    private boolean closed;
+
+    /**
+     * @param path the file to write, replaced if it exists
+     * @throws IOException if the file can not be opened
+     */
+    public PlanFileWriter(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        channel.position(PlanFile.HEADER_SIZE);
+    }
+
+    public void write(LinkRecord record) throws IOException {
+        write(record.getSourceOrd(), record.getSourceSlot(), record.getTargetOrd(), record.getTargetSlot());
+    }
+
+    public void write(String sourceOrd, String sourceSlot, String targetOrd, String targetSlot) throws IOException {
+        if (closed) {
+            throw new IOException("Plan file is closed");
+        }
+        if (blockRecords == 0) {
+            Arrays.fill(previous, "");
+        }
+        putField(0, sourceOrd);
+        putField(1, sourceSlot);
+        putField(2, targetOrd);
+        putField(3, targetSlot);
+        records++;
+        if (++blockRecords == PlanFile.BLOCK_RECORDS) {
+            flushBlock();
+        }
+    }
+
+    /**
+     * @return the number of records written so far
+     */
+    public long size() {
+        return records;
+    }
+
+    private void putField(int field, String value) {
+        int shared = PlanFile.sharedPrefix(previous[field], value);
+        byte[] rest = value.substring(shared).getBytes(PlanFile.UTF8);
+        ensureRoom(10 + rest.length);
+        PlanFile.putVarint(payload, shared);
+        PlanFile.putVarint(payload, rest.length);
+        payload.put(rest);
+        previous[field] = value;
+    }
+
+    private void ensureRoom(int n) {
+        if (payload.remaining() < n) {
+            ByteBuffer bigger = ByteBuffer.allocate(Math.max(payload.capacity() * 2, payload.position() + n));
+            payload.flip();
+            bigger.put(payload);
+            payload = bigger;
+        }
+    }
+
+    private void flushBlock() throws IOException {
+        if (blockRecords == 0) {
+            return;
+        }
+        if (blocks == blockFirst.length) {
+            blockFirst = Arrays.copyOf(blockFirst, blocks * 2);
+            blockOffset = Arrays.copyOf(blockOffset, blocks * 2);
+        }
+        blockFirst[blocks] = records - blockRecords;
+        blockOffset[blocks] = position;
+        blocks++;
+
+        payload.flip();
+        crc.reset();
+        crc.update(payload.array(), 0, payload.limit());
+        blockHeader.clear();
+        blockHeader.putInt(blockRecords).putInt(payload.limit()).putInt((int) crc.getValue());
+        blockHeader.flip();
+        position += writeFully(new ByteBuffer[]{blockHeader, payload});
+
+        payload.clear();
+        blockRecords = 0;
+    }
+
+    /**
+     * Writes the last block, the index and the header, then closes the file.
+     */
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            flushBlock();
+
+            long indexOffset = position;
+            ByteBuffer index = ByteBuffer.allocate(4 + blocks * 16 + 4);
+            index.putInt(blocks);
+            for (int i = 0; i < blocks; i++) {
+                index.putLong(blockFirst[i]).putLong(blockOffset[i]);
+            }
+            crc.reset();
+            crc.update(index.array(), 0, index.position());
+            index.putInt((int) crc.getValue());
+            index.flip();
+            writeFully(new ByteBuffer[]{index});
+
+            ByteBuffer header = ByteBuffer.allocate(PlanFile.HEADER_SIZE);
+            header.putInt(PlanFile.MAGIC).putShort((short) PlanFile.VERSION).putShort((short) 0)
+                    .putLong(records).putInt(blocks).putLong(indexOffset);
+            crc.reset();
+            crc.update(header.array(), 0, header.position());
+            header.putInt((int) crc.getValue());
+            header.flip();
+            long at = 0;
+            while (header.hasRemaining()) {
+                at += channel.write(header, at);
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    private long writeFully(ByteBuffer[] bufs) throws IOException {
+        long n = 0;
+        while (bufs[bufs.length - 1].hasRemaining()) {
+            n += channel.write(bufs);
+        }
+        return n;
+    }
+}
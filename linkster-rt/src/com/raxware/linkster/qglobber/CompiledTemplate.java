@@ -0,0 +1,365 @@
+/*
+ Licensed to the Apache Software Foundation (ASF) under one
+ or more contributor license agreements.  See the NOTICE file
+ distributed with this work for additional information
+ regarding copyright ownership.  The ASF licenses this file
+ to you under the Apache License, Version 2.0 (the
+ "License"); you may not use this file except in compliance
+ with the License.  You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing,
+ software distributed under the License is distributed on an
+ "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ KIND, either express or implied.  See the License for the
+ specific language governing permissions and limitations
+ under the License.
+ */
+package com.raxware.linkster.qglobber;
+
+import java.util.Spliterator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A template and its ranges, parsed once into literal segments and
+ * dimension slots.
+ * <p>
+ * <code>slot:/Building{[]}/Floor{[]}</code> with <code>1..5,1..3</code> becomes
+ * the literals <code>"slot:/Building"</code>, <code>"/Floor"</code> and <code>""</code>
+ * with one range between each pair.  Rendering an expansion then just copies
+ * the literals and writes the digits of each coordinate into an
+ * <code>OrdBuffer</code>, so no intermediate strings are created and the
+ * placeholders never have to be searched for again.
+ * <p>
+ * The expansions also form a mixed-radix number space: each dimension is a
+ * digit whose radix is the size of its range, the last dimension being the
+ * least significant.  That gives random access to the Nth expansion, and the
+ * reverse, without enumerating anything.
+ * <p>
+ * Instances are immutable and can be shared between threads.
+ *
+ * @author Will Chapman
+ */
+public final class CompiledTemplate {
+
+    private final String template;
+    private final char[][] literals;
+    private final Range[] ranges;
+    private final int maxLength;
+    private final long size;
+    private final GlobMatcher matcher;
+
+    private CompiledTemplate(String template, char[][] literals, Range[] ranges) {
+        this.template = template;
+        this.literals = literals;
+        this.ranges = ranges;
+
+        long n = 1;
+        try {
+            for (int i = 0; i < ranges.length; i++) {
+                n = Math.multiplyExact(n, ranges[i].size());
+            }
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Too many expansions for " + template);
+        }
+        this.size = n;
+        this.matcher = new GlobMatcher(literals, ranges);
+
+        int len = 0;
+        for (int i = 0; i < literals.length; i++) {
+            len += literals[i].length;
+        }
+        for (int i = 0; i < ranges.length; i++) {
+            len += ranges[i].maxWidth();
+        }
+        this.maxLength = len;
+    }
+
+    /**
+     * Parses the template and its sequences.
+     *
+     * @param t the template, one <code>{[]}</code> per dimension
+     * @param s the sequences, at least one per placeholder (extras are ignored)
+     * @return the compiled template
+     * @throws IllegalArgumentException if there are not enough sequences or one can not be parsed
+     */
+    public static CompiledTemplate compile(String t, String[] s)
+            throws IllegalArgumentException {
+        if (t == null) {
+            throw new NullPointerException("Invalid template string");
+        }
+        if (s == null) {
+            throw new NullPointerException("Invalid sequence array");
+        }
+
+        String[] parts = splitTemplate(t);
+        int dims = parts.length - 1;
+        if (s.length < dims) {
+            throw new IllegalArgumentException("Template has " + dims + " placeholders but only " + s.length + " ranges");
+        }
+
+        char[][] literals = new char[parts.length][];
+        for (int i = 0; i < parts.length; i++) {
+            literals[i] = parts[i].toCharArray();
+        }
+        Range[] ranges = new Range[dims];
+        for (int i = 0; i < dims; i++) {
+            ranges[i] = Range.parse(s[i]);
+        }
+        return new CompiledTemplate(t, literals, ranges);
+    }
+
+    /**
+     * Breaks the template around each placeholder.
+     *
+     * @param t the template
+     * @return the literal text, always one more element than there are placeholders
+     */
+    static String[] splitTemplate(String t) {
+        int count = 0;
+        int pos = t.indexOf(Globber.PLACE_HOLDER);
+        while (pos >= 0) {
+            count++;
+            pos = t.indexOf(Globber.PLACE_HOLDER, pos + Globber.PLACE_HOLDER.length());
+        }
+
+        String[] parts = new String[count + 1];
+        int start = 0;
+        for (int i = 0; i < count; i++) {
+            int end = t.indexOf(Globber.PLACE_HOLDER, start);
+            parts[i] = t.substring(start, end);
+            start = end + Globber.PLACE_HOLDER.length();
+        }
+        parts[count] = t.substring(start);
+        return parts;
+    }
+
+    /**
+     * @return the template this was compiled from
+     */
+    public String getTemplate() {
+        return template;
+    }
+
+    /**
+     * @return the number of placeholders
+     */
+    public int getDimensions() {
+        return ranges.length;
+    }
+
+    /**
+     * @param dim the dimension
+     * @return the range for that placeholder
+     */
+    public Range getRange(int dim) {
+        return ranges[dim];
+    }
+
+    /**
+     * @return the longest any single expansion can be
+     */
+    public int getMaxLength() {
+        return maxLength;
+    }
+
+    /**
+     * @return a buffer big enough to render any expansion of this template
+     */
+    public OrdBuffer newBuffer() {
+        return new OrdBuffer(maxLength);
+    }
+
+    /**
+     * @return the number of expansions, computed once when compiled
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * @return true if at least one range is empty, meaning there is nothing to expand
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Converts an index into its coordinates.
+     *
+     * @param index  zero based position in the expansion order
+     * @param coords where to write, one element per dimension
+     * @throws IndexOutOfBoundsException if the index is not less than <code>size()</code>
+     */
+    public void decode(long index, int[] coords) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " of " + size);
+        }
+        for (int i = ranges.length - 1; i >= 0; i--) {
+            int radix = ranges[i].size();
+            coords[i] = ranges[i].getStart() + (int) (index % radix);
+            index /= radix;
+        }
+    }
+
+    /**
+     * Converts coordinates back into their index.
+     *
+     * @param coords one value per dimension
+     * @return the index, or -1 if a coordinate is outside its range
+     */
+    public long encode(int[] coords) {
+        long index = 0;
+        for (int i = 0; i < ranges.length; i++) {
+            Range r = ranges[i];
+            if (coords[i] < r.getStart() || coords[i] > r.getEnd()) {
+                return -1;
+            }
+            index = index * r.size() + (coords[i] - r.getStart());
+        }
+        return index;
+    }
+
+    /**
+     * @param index zero based position in the expansion order
+     * @return the expansion at that position
+     */
+    public String get(long index) {
+        int[] coords = new int[ranges.length];
+        decode(index, coords);
+        return render(coords, newBuffer()).toString();
+    }
+
+    /**
+     * The reverse of <code>get</code>.  See <code>GlobMatcher</code> for how
+     * ambiguous strings are read.
+     *
+     * @param s an expanded string
+     * @return its index, or -1 if it is not one of the expansions
+     */
+    public long indexOf(CharSequence s) {
+        int[] coords = matcher.match(s);
+        return coords == null ? -1 : encode(coords);
+    }
+
+    /**
+     * @return the matcher for testing strings against this template
+     */
+    public GlobMatcher matcher() {
+        return matcher;
+    }
+
+    /**
+     * Pushes every expansion to a visitor, in order.  Nothing is allocated
+     * per row: the coordinates are turned in place and, when asked for, the
+     * ord is rendered into a single reused buffer.
+     *
+     * @param visitor receives each expansion
+     * @param render  true to render the ord for each row, false to only pass coordinates
+     * @return the number of rows visited
+     */
+    public long visit(GlobVisitor visitor, boolean render) {
+        if (size == 0) {
+            return 0;
+        }
+
+        int[] coords = new int[ranges.length];
+        OrdBuffer buf = render ? newBuffer() : null;
+        first(coords);
+        long index = 0;
+        do {
+            if (!visitor.visit(index++, coords, render ? render(coords, buf) : null)) {
+                break;
+            }
+        } while (increment(coords));
+        return index;
+    }
+
+    /**
+     * Expands every row into a front coded table, which holds the rows in a
+     * fraction of the memory the equivalent strings would need.
+     *
+     * @param suffix text to append to every row, may be null
+     * @return the table
+     */
+    public OrdTable toTable(String suffix) {
+        return OrdTable.of(this, suffix);
+    }
+
+    /**
+     * @return a spliterator over every expansion, which splits the index space evenly
+     */
+    public Spliterator<String> spliterator() {
+        return new GlobSpliterator(this);
+    }
+
+    /**
+     * @param parallel true to process disjoint blocks of the expansion on the common fork-join pool
+     * @return a stream of every expansion, in order
+     */
+    public Stream<String> stream(boolean parallel) {
+        return StreamSupport.stream(spliterator(), parallel);
+    }
+
+    /**
+     * Fills in the first coordinate of every dimension.
+     *
+     * @param coords where to write, one element per dimension
+     */
+    public void first(int[] coords) {
+        for (int i = 0; i < ranges.length; i++) {
+            coords[i] = ranges[i].getStart();
+        }
+    }
+
+    /**
+     * Turns the odometer one position; the last dimension turns the fastest.
+     *
+     * @param coords the current coordinates, updated in place
+     * @return false if the coordinates were already the last expansion (they wrap back to the first)
+     */
+    public boolean increment(int[] coords) {
+        int i = ranges.length - 1;
+        while (i >= 0 && coords[i] == ranges[i].getEnd()) {
+            coords[i] = ranges[i].getStart();
+            i--;
+        }
+        if (i < 0) {
+            return false;
+        }
+        coords[i]++;
+        return true;
+    }
+
+    /**
+     * Renders the expansion for a set of coordinates.
+     *
+     * @param coords one value per dimension (character codes for alpha ranges)
+     * @param buf    the buffer to render into; its previous contents are replaced
+     * @return the same buffer, for convenience
+     */
+    public OrdBuffer render(int[] coords, OrdBuffer buf) {
+        buf.ensureCapacity(maxLength);
+        char[] dst = buf.chars;
+        int pos = 0;
+        for (int i = 0; i < ranges.length; i++) {
+            char[] lit = literals[i];
+            System.arraycopy(lit, 0, dst, pos, lit.length);
+            pos = ranges[i].write(coords[i], dst, pos + lit.length);
+        }
+        char[] last = literals[ranges.length];
+        System.arraycopy(last, 0, dst, pos, last.length);
+        buf.length = pos + last.length;
+        return buf;
+    }
+
+    public String toString() {
+        StringBuilder sb = new StringBuilder(template);
+        for (int i = 0; i < ranges.length; i++) {
+            sb.append(i == 0 ? " " : ",").append(ranges[i]);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ Licensed to the Apache Software Foundation (ASF) under one
+ or more contributor license agreements.  See the NOTICE file
+ distributed with this work for additional information
+ regarding copyright ownership.  The ASF licenses this file
+ to you under the Apache License, Version 2.0 (the
+ "License"); you may not use this file except in compliance
+ with the License.  You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing,
+ software distributed under the License is distributed on an
+ "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ KIND, either express or implied.  See the License for the
+ specific language governing permissions and limitations
+ under the License.
+ */
+package com.raxware.linkster.qglobber;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazily expands a template and its ranges one string at a time.
+ * <p>
+ * Works like an odometer: one counter per placeholder, the last placeholder
+ * turns the fastest.  The order is the same as <code>Globber.explodeSequence</code>
+ * but only the counters are held in memory, never the expanded list.
+ *
+ * @author Will Chapman
+ */
+public class GlobIterator implements Iterator<String> {
+
+    private final CompiledTemplate template;
+    private final int[] coords;
+    private final OrdBuffer buf;
+    private boolean more;
+
+    /**
+     * @param t the template, one <code>{[]}</code> per dimension
+     * @param s the sequences, at least one per placeholder (extras are ignored)
+     */
+    public GlobIterator(String t, String[] s) {
+        this(CompiledTemplate.compile(t, s));
+    }
+
+    /**
+     * @param template an already compiled template
+     */
+    public GlobIterator(CompiledTemplate template) {
+        this.template = template;
+        this.coords = new int[template.getDimensions()];
+        this.buf = template.newBuffer();
+        this.more = !template.isEmpty();
+        template.first(coords);
+    }
+
+    public boolean hasNext() {
+        return more;
+    }
+
+    public String next() {
+        if (!more) {
+            throw new NoSuchElementException();
+        }
+
+        String result = template.render(coords, buf).toString();
+        more = template.increment(coords);
+        return result;
+    }
+}
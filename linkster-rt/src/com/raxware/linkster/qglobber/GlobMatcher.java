@@ -0,0 +1,221 @@
+/*
+ Licensed to the Apache Software Foundation (ASF) under one
+ or more contributor license agreements.  See the NOTICE file
+ distributed with this work for additional information
+ regarding copyright ownership.  The ASF licenses this file
+ to you under the Apache License, Version 2.0 (the
+ "License"); you may not use this file except in compliance
+ with the License.  You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing,
+ software distributed under the License is distributed on an
+ "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ KIND, either express or implied.  See the License for the
+ specific language governing permissions and limitations
+ under the License.
+ */
+package com.raxware.linkster.qglobber;
+
+/**
+ * The reverse of expansion: tests a concrete string against a compiled
+ * template and reads its coordinates back out.
+ * <p>
+ * Matching is a single left to right pass.  Literal segments are compared
+ * character by character, alpha placeholders take exactly one character and
+ * numeric placeholders take a run of digits.  How many of the digits after a
+ * numeric placeholder are fixed - the leading digits of the literal that
+ * follows, all of it if it is only digits (<code>VAV{[]}00</code>), up to the
+ * next non-digit text, letter placeholder or the end - is worked out when the
+ * matcher is compiled, so the placeholder takes the run less those and
+ * nothing is tried twice.
+ * <p>
+ * The one exception is a numeric placeholder whose digits run straight into
+ * another numeric placeholder's (<code>{[]}{[]}</code> or
+ * <code>{[]}0{[]}</code>), where the split can not be known in advance.
+ * There each width the range allows is tried, widest first, until the rest
+ * of the string matches.  A range is at most ten digits wide, so a chain of k
+ * such placeholders costs at most 10<sup>k-1</sup> times a plain match; a
+ * template without one is always linear.  When more than one split works
+ * ("111" for 1..20,1..20) the first placeholder gets the widest value.
+ * <p>
+ * Instances are immutable and can be shared between threads.
+ *
+ * @author Will Chapman
+ */
+public final class GlobMatcher {
+
+    private final char[][] literals;
+    private final Range[] ranges;
+
+    /**
+     * For each numeric placeholder, how many digits at the end of its run
+     * belong to the literal that follows it, or -1 if its digits run into
+     * another numeric placeholder and each width has to be tried.
+     */
+    private final int[] fixedDigits;
+
+    GlobMatcher(char[][] literals, Range[] ranges) {
+        this.literals = literals;
+        this.ranges = ranges;
+        this.fixedDigits = new int[ranges.length];
+        for (int i = 0; i < ranges.length; i++) {
+            fixedDigits[i] = fixedDigits(i);
+        }
+    }
+
+    /**
+     * @param i a placeholder
+     * @return the digits that follow it up to the next thing that can not be
+     * a digit, or -1 if another numeric placeholder comes first
+     */
+    private int fixedDigits(int i) {
+        char[] lit = literals[i + 1];
+        int n = 0;
+        while (n < lit.length && isDigit(lit[n])) {
+            n++;
+        }
+        if (n < lit.length || i + 1 == ranges.length) {
+            return n;
+        }
+        Range next = ranges[i + 1];
+        return next.isAlpha() && (next.getEnd() < '0' || next.getStart() > '9') ? n : -1;
+    }
+
+    /**
+     * @return the number of placeholders, and so the length of a coordinate tuple
+     */
+    public int getDimensions() {
+        return ranges.length;
+    }
+
+    /**
+     * @param s the string to test
+     * @return the coordinates (character codes for alpha ranges), or null if it does not match
+     */
+    public int[] match(CharSequence s) {
+        int[] coords = new int[ranges.length];
+        return match(s, 0, s.length(), coords) ? coords : null;
+    }
+
+    /**
+     * Tests part of a string without copying it out first, for example
+     * the ord half of an "ord.slot" row.
+     *
+     * @param s      the string to test
+     * @param start  the first character to test
+     * @param end    one past the last character to test
+     * @param coords where to write the coordinates, one element per dimension
+     * @return true if the region is one of the expansions
+     */
+    public boolean match(CharSequence s, int start, int end, int[] coords) {
+        return scan(s, 0, start, end, coords, false);
+    }
+
+    /**
+     * Tests whether a string could be the start of an expansion.  This is
+     * meant for pruning a walk of the component tree: once a component's
+     * path can not lead to a match, none of its children can either.
+     * <p>
+     * The answer is conservative - a path that stops part way through a
+     * numeric value is assumed to be able to continue.
+     *
+     * @param s the partial string
+     * @return false only if no expansion starts with <code>s</code>
+     */
+    public boolean matchesPrefix(CharSequence s) {
+        return scan(s, 0, 0, s.length(), new int[ranges.length], true);
+    }
+
+    /**
+     * Matches from placeholder <code>i</code>'s leading literal onwards.
+     */
+    private boolean scan(CharSequence s, int i, int pos, int end, int[] coords, boolean prefix) {
+        for (; i <= ranges.length; i++) {
+            char[] lit = literals[i];
+            for (int j = 0; j < lit.length; j++) {
+                if (pos >= end) {
+                    return prefix;
+                }
+                if (s.charAt(pos++) != lit[j]) {
+                    return false;
+                }
+            }
+            if (i == ranges.length) {
+                break;
+            }
+            if (pos >= end) {
+                return prefix;
+            }
+
+            Range r = ranges[i];
+            if (r.isAlpha()) {
+                coords[i] = s.charAt(pos++);
+                if (coords[i] < r.getStart() || coords[i] > r.getEnd()) {
+                    return false;
+                }
+            } else {
+                boolean negative = s.charAt(pos) == '-';
+                int digitsStart = negative ? pos + 1 : pos;
+
+                // find the run of digits, then decide how much of it is ours
+                int run = digitsStart;
+                while (run < end && isDigit(s.charAt(run))) {
+                    run++;
+                }
+                if (run == end && prefix) {
+                    return true;
+                }
+                if (fixedDigits[i] >= 0) {
+                    int stop = run - fixedDigits[i];
+                    if (!number(s, digitsStart, stop, negative, r, coords, i)) {
+                        return false;
+                    }
+                    pos = stop;
+                } else {
+                    // the digits run into the next numeric placeholder
+                    for (int stop = Math.min(run, pos + r.maxWidth()); stop > digitsStart; stop--) {
+                        if (number(s, digitsStart, stop, negative, r, coords, i)
+                                && scan(s, i + 1, stop, end, coords, prefix)) {
+                            return true;
+                        }
+                    }
+                    return false;
+                }
+            }
+        }
+        return pos == end || prefix;
+    }
+
+    /**
+     * Reads the digits from <code>start</code> to <code>stop</code> as the
+     * value of placeholder <code>i</code>.
+     *
+     * @return false if they are not a value in the range
+     */
+    private static boolean number(CharSequence s, int start, int stop, boolean negative, Range r,
+                                  int[] coords, int i) {
+        int digits = stop - start;
+        if (digits <= 0 || digits > 10 || (digits > 1 && s.charAt(start) == '0')) {
+            return false;
+        }
+
+        long v = 0;
+        for (int k = start; k < stop; k++) {
+            v = v * 10 + (s.charAt(k) - '0');
+        }
+        if (negative) {
+            v = -v;
+        }
+        if (v < r.getStart() || v > r.getEnd()) {
+            return false;
+        }
+        coords[i] = (int) v;
+        return true;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ Licensed to the Apache Software Foundation (ASF) under one
+ or more contributor license agreements.  See the NOTICE file
+ distributed with this work for additional information
+ regarding copyright ownership.  The ASF licenses this file
+ to you under the Apache License, Version 2.0 (the
+ "License"); you may not use this file except in compliance
+ with the License.  You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing,
+ software distributed under the License is distributed on an
+ "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ KIND, either express or implied.  See the License for the
+ specific language governing permissions and limitations
+ under the License.
+ */
+package com.raxware.linkster.qglobber;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Splits the expansion space of a <code>CompiledTemplate</code> by index.
+ * <p>
+ * Each spliterator covers a block <code>[origin, fence)</code> of the
+ * expansion order.  Splitting hands the first half to the new spliterator
+ * and keeps the second, so a parallel stream still sees the expansions in
+ * the same order as <code>Globber.explodeSequence</code>.  Within a block the
+ * odometer is turned rather than decoding every index.
+ *
+ * @author Will Chapman
+ */
+public class GlobSpliterator implements Spliterator<String> {
+
+    /**
+     * Blocks smaller than this are not split any further; rendering a row is
+     * cheap enough that smaller tasks cost more to schedule than to run.
+     */
+    static final long MIN_SPLIT = 256;
+
+    private final CompiledTemplate template;
+    private long origin;
+    private final long fence;
+    private int[] coords;
+    private OrdBuffer buf;
+
+    public GlobSpliterator(CompiledTemplate template) {
+        this(template, 0, template.size());
+    }
+
+    GlobSpliterator(CompiledTemplate template, long origin, long fence) {
+        this.template = template;
+        this.origin = origin;
+        this.fence = fence;
+    }
+
+    /**
+     * The coordinates and buffer are only created once this block is
+     * actually walked, so splitting stays cheap.
+     */
+    private void start() {
+        if (coords == null) {
+            coords = new int[template.getDimensions()];
+            buf = template.newBuffer();
+            template.decode(origin, coords);
+        }
+    }
+
+    public boolean tryAdvance(Consumer<? super String> action) {
+        if (origin >= fence) {
+            return false;
+        }
+        start();
+        String result = template.render(coords, buf).toString();
+        if (++origin < fence) {
+            template.increment(coords);
+        }
+        action.accept(result);
+        return true;
+    }
+
+    public void forEachRemaining(Consumer<? super String> action) {
+        if (origin >= fence) {
+            return;
+        }
+        start();
+        long end = fence;
+        for (long i = origin; i < end; i++) {
+            action.accept(template.render(coords, buf).toString());
+            if (i + 1 < end) {
+                template.increment(coords);
+            }
+        }
+        origin = end;
+    }
+
+    public Spliterator<String> trySplit() {
+        long remaining = fence - origin;
+        if (remaining < MIN_SPLIT * 2 || coords != null) {
+            return null;
+        }
+        long mid = origin + (remaining >>> 1);
+        GlobSpliterator prefix = new GlobSpliterator(template, origin, mid);
+        origin = mid;
+        return prefix;
+    }
+
+    public long estimateSize() {
+        return fence - origin;
+    }
+
+    public long getExactSizeIfKnown() {
+        return fence - origin;
+    }
+
+    public int characteristics() {
+        return ORDERED | SIZED | SUBSIZED | IMMUTABLE | NONNULL;
+    }
+}
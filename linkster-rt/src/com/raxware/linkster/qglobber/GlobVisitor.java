@@ -0,0 +1,40 @@
+/*
+ Licensed to the Apache Software Foundation (ASF) under one
+ or more contributor license agreements.  See the NOTICE file
+ distributed with this work for additional information
+ regarding copyright ownership.  The ASF licenses this file
+ to you under the Apache License, Version 2.0 (the
+ "License"); you may not use this file except in compliance
+ with the License.  You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing,
+ software distributed under the License is distributed on an
+ "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ KIND, either express or implied.  See the License for the
+ specific language governing permissions and limitations
+ under the License.
+ */
+package com.raxware.linkster.qglobber;
+
+/**
+ * Receives each expansion of a <code>CompiledTemplate</code> as primitive
+ * coordinates, for consumers that care about the building, floor or VAV
+ * number rather than the formatted string.
+ * <p>
+ * The same coordinate array and ord buffer are passed for every row, so a
+ * visitor must copy anything it wants to keep.
+ *
+ * @author Will Chapman
+ */
+public interface GlobVisitor {
+
+    /**
+     * @param index  the position of this expansion
+     * @param coords one value per dimension (character codes for alpha ranges); reused between calls
+     * @param ord    the rendered expansion, or null if rendering was not asked for; reused between calls
+     * @return true to keep going, false to stop
+     */
+    boolean visit(long index, int[] coords, CharSequence ord);
+}
@@ -19,7 +19,10 @@
 package com.raxware.linkster.qglobber;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Stream;
 
 /**
  * This works as the logic to expand a string into multiple strings using
@@ -84,6 +87,24 @@ public class Globber {
         return (String[]) list.toArray(new String[list.size()]);
     }
 
+    /**
+     * Splits a range list such as <code>1..2,1..10,A:A..D</code> into one
+     * sequence per placeholder, trimming any whitespace around each one.
+     *
+     * @param range the comma separated range list, may be null
+     * @return the sequences, empty if there are none
+     */
+    public static String[] splitRanges(String range) {
+        String[] seqs = split(range, ',', false);
+        if (seqs == null) {
+            return new String[0];
+        }
+        for (int i = 0; i < seqs.length; i++) {
+            seqs[i] = seqs[i].trim();
+        }
+        return seqs;
+    }
+
     /**
      * <p>
      * Checks if a String is empty ("") or null.</p>
@@ -155,16 +176,16 @@ public class Globber {
         int increase = replacement.length() - replLength;
         increase = (increase < 0 ? 0 : increase);
         increase *= (max < 0 ? 16 : (max > 64 ? 64 : max));
-        StringBuffer buf = new StringBuffer(text.length() + increase);
+        StringBuilder buf = new StringBuilder(text.length() + increase);
         while (end != -1) {
-            buf.append(text.substring(start, end)).append(replacement);
+            buf.append(text, start, end).append(replacement);
             start = end + replLength;
             if (--max == 0) {
                 break;
             }
             end = text.indexOf(searchString, start);
         }
-        buf.append(text.substring(start));
+        buf.append(text, start, text.length());
         return buf.toString();
     }
 
@@ -177,7 +198,7 @@ public class Globber {
      * @param seq A string representing the sequence
      * @return integer array. The zero element is the START; the one element is the END
      */
-    private static int[] breakSequence(String seq) {
+    static int[] breakSequence(String seq) {
         int[] endpoints = new int[2];
 
         int dotdot_pos = seq.indexOf("..");
@@ -201,7 +222,7 @@ public class Globber {
      * @param seq
      * @return
      */
-    private static int[] breakAlphaSequence(String seq)
+    static int[] breakAlphaSequence(String seq)
             throws IllegalArgumentException {
         // minimum valid length for an alpha sequence is 6
         // A:a..b
@@ -296,6 +317,94 @@ public class Globber {
         return list;
     }
 
+    /**
+     * Parses the template and its sequences once so that expansions can be
+     * rendered without re-scanning the template for placeholders.
+     *
+     * @param t the template
+     * @param s the sequences, one per placeholder
+     * @return the compiled template
+     */
+    public static CompiledTemplate compile(String t, String[] s) {
+        return CompiledTemplate.compile(t, s);
+    }
+
+    /**
+     * Compiles a matcher that tests whether a concrete string, such as an
+     * existing component's slot path, is one of the template's expansions and
+     * if so at which coordinates.  Matching is linear in the length of the
+     * string, unless two numeric placeholders are separated only by digits;
+     * see <code>GlobMatcher</code> for that case.
+     *
+     * @param t the template
+     * @param s the sequences, one per placeholder
+     * @return the matcher
+     */
+    public static GlobMatcher matcher(String t, String[] s) {
+        return compile(t, s).matcher();
+    }
+
+    /**
+     * Expands the template without creating a string per row, handing each
+     * expansion's coordinates and rendered ord to the visitor.
+     *
+     * @param t       the template
+     * @param s       the sequences, one per placeholder
+     * @param visitor receives each expansion; return false to stop early
+     * @return the number of rows visited
+     */
+    public static long visit(String t, String[] s, GlobVisitor visitor) {
+        return compile(t, s).visit(visitor, true);
+    }
+
+    /**
+     * Lazily expands the template, one string at a time, in the same order
+     * as <code>explodeSequence</code>.  Only one counter per placeholder is
+     * kept in memory, so consumers can start working on the first result
+     * right away regardless of how big the expansion is.
+     *
+     * @param t the template
+     * @param s the sequences, one per placeholder
+     * @return an iterator over the expanded strings
+     */
+    public static Iterator<String> iterator(String t, String[] s) {
+        return new GlobIterator(t, s);
+    }
+
+    /**
+     * Same as <code>iterator</code> but as a sequential, ordered stream.
+     *
+     * @param t the template
+     * @param s the sequences, one per placeholder
+     * @return a stream of the expanded strings
+     */
+    public static Stream<String> stream(String t, String[] s) {
+        return stream(t, s, false);
+    }
+
+    /**
+     * A stream of the expanded strings that can run in parallel.  The range
+     * space is split evenly by index, so a parallel stream keeps the same
+     * encounter order as a sequential one.
+     *
+     * @param t        the template
+     * @param s        the sequences, one per placeholder
+     * @param parallel true for a parallel stream
+     * @return a stream of the expanded strings
+     */
+    public static Stream<String> stream(String t, String[] s, boolean parallel) {
+        return compile(t, s).stream(parallel);
+    }
+
+    /**
+     * @param t the template
+     * @param s the sequences, one per placeholder
+     * @return a sized, splittable spliterator over the expanded strings
+     */
+    public static Spliterator<String> spliterator(String t, String[] s) {
+        return compile(t, s).spliterator();
+    }
+
     /**
      * @param t
      * @param s
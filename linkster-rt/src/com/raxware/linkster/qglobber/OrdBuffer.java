@@ -0,0 +1,123 @@
+/*
+ Licensed to the Apache Software Foundation (ASF) under one
+ or more contributor license agreements.  See the NOTICE file
+ distributed with this work for additional information
+ regarding copyright ownership.  The ASF licenses this file
+ to you under the Apache License, Version 2.0 (the
+ "License"); you may not use this file except in compliance
+ with the License.  You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing,
+ software distributed under the License is distributed on an
+ "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ KIND, either express or implied.  See the License for the
+ specific language governing permissions and limitations
+ under the License.
+ */
+package com.raxware.linkster.qglobber;
+
+import java.util.Arrays;
+
+/**
+ * A reusable character buffer that a <code>CompiledTemplate</code> renders
+ * into.  It is sized once for the longest possible expansion so rendering
+ * never has to grow it, and it can be handed out as a <code>CharSequence</code>
+ * without making a copy.
+ * <p>
+ * Not thread safe - each thread should render into its own buffer.
+ *
+ * @author Will Chapman
+ */
+public final class OrdBuffer implements CharSequence {
+
+    char[] chars;
+    int length;
+
+    public OrdBuffer(int capacity) {
+        chars = new char[capacity];
+    }
+
+    /**
+     * Makes sure the buffer can hold at least <code>capacity</code> characters.
+     * The current contents are not preserved.
+     *
+     * @param capacity the required capacity
+     */
+    public void ensureCapacity(int capacity) {
+        if (chars.length < capacity) {
+            chars = new char[capacity];
+            length = 0;
+        }
+    }
+
+    /**
+     * Empties the buffer without releasing its storage.
+     */
+    public void clear() {
+        length = 0;
+    }
+
+    /**
+     * Appends characters, growing the buffer if needed.
+     *
+     * @param s the characters to append
+     * @return this buffer
+     */
+    public OrdBuffer append(CharSequence s) {
+        int len = s.length();
+        if (length + len > chars.length) {
+            chars = Arrays.copyOf(chars, Math.max(chars.length * 2, length + len));
+        }
+        for (int i = 0; i < len; i++) {
+            chars[length++] = s.charAt(i);
+        }
+        return this;
+    }
+
+    /**
+     * @return the backing array; only the first <code>length()</code> characters are valid
+     */
+    public char[] getChars() {
+        return chars;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException(String.valueOf(index));
+        }
+        return chars[index];
+    }
+
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || end > length || start > end) {
+            throw new IndexOutOfBoundsException(start + ".." + end);
+        }
+        return new String(chars, start, end - start);
+    }
+
+    /**
+     * @param other the sequence to compare with
+     * @return true if the current contents are the same characters as <code>other</code>
+     */
+    public boolean contentEquals(CharSequence other) {
+        if (other.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (chars[i] != other.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public String toString() {
+        return new String(chars, 0, length);
+    }
+}
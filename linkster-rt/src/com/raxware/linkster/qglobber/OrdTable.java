@@ -0,0 +1,240 @@
+/*
+ Licensed to the Apache Software Foundation (ASF) under one
+ or more contributor license agreements.  See the NOTICE file
+ distributed with this work for additional information
+ regarding copyright ownership.  The ASF licenses this file
+ to you under the Apache License, Version 2.0 (the
+ "License"); you may not use this file except in compliance
+ with the License.  You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing,
+ software distributed under the License is distributed on an
+ "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ KIND, either express or implied.  See the License for the
+ specific language governing permissions and limitations
+ under the License.
+ */
+package com.raxware.linkster.qglobber;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A compact, append-only table of ord strings.
+ * <p>
+ * Expanded ords are extremely repetitive - every row of
+ * <code>slot:/Building1/Floor1/VAV1A</code> shares almost all of its text with
+ * the row before it.  The table is front coded: rows are grouped into blocks
+ * of <code>BLOCK_SIZE</code>, the first row of a block is stored whole and
+ * every other row is stored as the length of the prefix it shares with the
+ * previous row plus the characters that differ.  All rows live in one
+ * <code>char[]</code>, so there is no per-row object overhead either.
+ * <p>
+ * Random access decodes at most one block, so <code>get</code> is constant
+ * time.  Iteration decodes each row once, in order.
+ * <p>
+ * Not thread safe while rows are being added; safe to read from several
+ * threads once it is fully built.
+ *
+ * @author Will Chapman
+ */
+public class OrdTable implements Iterable<String> {
+
+    /**
+     * Rows per block; a trade off between compression and the cost of a lookup.
+     */
+    static final int BLOCK_SIZE = 16;
+
+    private char[] data;
+    private int dataLength;
+    private int[] blockOffsets;
+    private int size;
+
+    private final OrdBuffer last;
+
+    public OrdTable() {
+        this(1024);
+    }
+
+    /**
+     * @param expectedRows a hint for how many rows will be added
+     */
+    public OrdTable(int expectedRows) {
+        int blocks = Math.max(1, expectedRows / BLOCK_SIZE + 1);
+        data = new char[blocks * 64];
+        blockOffsets = new int[blocks];
+        last = new OrdBuffer(64);
+    }
+
+    /**
+     * Builds a table holding every expansion of a template, without creating
+     * a string for any of them.
+     *
+     * @param template the compiled template
+     * @param suffix   text to append to every row (such as ".out"), may be null
+     * @return the table
+     */
+    public static OrdTable of(CompiledTemplate template, final String suffix) {
+        if (template.size() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many rows for a table (" + template.size() + ")");
+        }
+        final OrdTable table = new OrdTable((int) template.size());
+        final OrdBuffer row = new OrdBuffer(template.getMaxLength() + (suffix == null ? 0 : suffix.length()));
+        template.visit(new GlobVisitor() {
+            public boolean visit(long index, int[] coords, CharSequence ord) {
+                if (suffix == null) {
+                    table.add(ord);
+                } else {
+                    row.clear();
+                    row.append(ord).append(suffix);
+                    table.add(row);
+                }
+                return true;
+            }
+        }, true);
+        table.trimToSize();
+        return table;
+    }
+
+    /**
+     * Appends a row.
+     *
+     * @param ord the row to add
+     */
+    public void add(CharSequence ord) {
+        int len = ord.length();
+        if (len > Character.MAX_VALUE) {
+            throw new IllegalArgumentException("Ord too long for table (" + len + " chars)");
+        }
+
+        if (size % BLOCK_SIZE == 0) {
+            int block = size / BLOCK_SIZE;
+            if (block == blockOffsets.length) {
+                // a table trimmed while empty has no blocks at all
+                blockOffsets = Arrays.copyOf(blockOffsets, Math.max(1, block * 2));
+            }
+            blockOffsets[block] = dataLength;
+            ensureData(len + 1);
+            data[dataLength++] = (char) len;
+            for (int i = 0; i < len; i++) {
+                data[dataLength++] = ord.charAt(i);
+            }
+        } else {
+            int prefix = 0;
+            int max = Math.min(len, last.length);
+            while (prefix < max && last.chars[prefix] == ord.charAt(prefix)) {
+                prefix++;
+            }
+            ensureData(len - prefix + 2);
+            data[dataLength++] = (char) prefix;
+            data[dataLength++] = (char) (len - prefix);
+            for (int i = prefix; i < len; i++) {
+                data[dataLength++] = ord.charAt(i);
+            }
+        }
+
+        last.ensureCapacity(len);
+        for (int i = 0; i < len; i++) {
+            last.chars[i] = ord.charAt(i);
+        }
+        last.length = len;
+        size++;
+    }
+
+    private void ensureData(int extra) {
+        if (dataLength + extra > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, dataLength + extra));
+        }
+    }
+
+    /**
+     * Releases any spare capacity once the table is complete.
+     */
+    public void trimToSize() {
+        data = Arrays.copyOf(data, dataLength);
+        blockOffsets = Arrays.copyOf(blockOffsets, (size + BLOCK_SIZE - 1) / BLOCK_SIZE);
+    }
+
+    /**
+     * @return the number of rows
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param index the row
+     * @return the row as a new string
+     */
+    public String get(int index) {
+        return get(index, new OrdBuffer(64)).toString();
+    }
+
+    /**
+     * Decodes a row into a reusable buffer.
+     *
+     * @param index the row
+     * @param buf   where to decode to; grown if needed
+     * @return the same buffer, for convenience
+     */
+    public OrdBuffer get(int index, OrdBuffer buf) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " of " + size);
+        }
+        int pos = decodeFirst(blockOffsets[index / BLOCK_SIZE], buf);
+        for (int i = index - index % BLOCK_SIZE; i < index; i++) {
+            pos = decodeNext(pos, buf);
+        }
+        return buf;
+    }
+
+    /**
+     * @return roughly how many bytes of heap the table is holding
+     */
+    public long estimateBytes() {
+        return 2L * data.length + 4L * blockOffsets.length + 2L * last.chars.length + 64;
+    }
+
+    public Iterator<String> iterator() {
+        return new Iterator<String>() {
+            private final OrdBuffer buf = new OrdBuffer(64);
+            private int index;
+            private int pos;
+
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            public String next() {
+                if (index >= size) {
+                    throw new NoSuchElementException();
+                }
+                pos = index % BLOCK_SIZE == 0 ? decodeFirst(pos, buf) : decodeNext(pos, buf);
+                index++;
+                return buf.toString();
+            }
+        };
+    }
+
+    private int decodeFirst(int pos, OrdBuffer buf) {
+        int len = data[pos++];
+        buf.ensureCapacity(len);
+        System.arraycopy(data, pos, buf.chars, 0, len);
+        buf.length = len;
+        return pos + len;
+    }
+
+    private int decodeNext(int pos, OrdBuffer buf) {
+        int prefix = data[pos++];
+        int suffix = data[pos++];
+        if (buf.chars.length < prefix + suffix) {
+            buf.chars = Arrays.copyOf(buf.chars, prefix + suffix);
+        }
+        System.arraycopy(data, pos, buf.chars, prefix, suffix);
+        buf.length = prefix + suffix;
+        return pos + suffix;
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ Licensed to the Apache Software Foundation (ASF) under one
+ or more contributor license agreements.  See the NOTICE file
+ distributed with this work for additional information
+ regarding copyright ownership.  The ASF licenses this file
+ to you under the Apache License, Version 2.0 (the
+ "License"); you may not use this file except in compliance
+ with the License.  You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing,
+ software distributed under the License is distributed on an
+ "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ KIND, either express or implied.  See the License for the
+ specific language governing permissions and limitations
+ under the License.
+ */
+package com.raxware.linkster.qglobber;
+
+/**
+ * A single parsed dimension of a range list, either numeric
+ * (<code>1..20</code>) or alpha (<code>A:A..D</code>).
+ * <p>
+ * Values are stored the same way <code>Globber</code> has always handled
+ * them: numeric ranges hold the integers, alpha ranges hold the character
+ * codes of the starting and ending characters.
+ *
+ * @author Will Chapman
+ */
+public final class Range {
+
+    private final int start;
+    private final int end;
+    private final boolean alpha;
+
+    public Range(int start, int end, boolean alpha) {
+        this.start = start;
+        this.end = end;
+        this.alpha = alpha;
+    }
+
+    /**
+     * Parses a single sequence such as <code>1..5</code> or <code>A:A..C</code>.
+     *
+     * @param seq the sequence to parse
+     * @return the parsed range
+     * @throws IllegalArgumentException if the sequence can not be parsed
+     */
+    public static Range parse(String seq)
+            throws IllegalArgumentException {
+        if (Globber.isEmpty(seq) || seq.indexOf("..") < 0) {
+            throw new IllegalArgumentException("Invalid sequence (" + seq + ")");
+        }
+
+        boolean alphaFlag = seq.length() > 1 && seq.charAt(0) == 'A' && seq.charAt(1) == ':';
+        try {
+            int[] endpoints = alphaFlag ? Globber.breakAlphaSequence(seq) : Globber.breakSequence(seq);
+            return new Range(endpoints[0], endpoints[1], alphaFlag);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid sequence (" + seq + ")");
+        }
+    }
+
+    /**
+     * Parses each sequence in the array.
+     *
+     * @param seqs the sequences, one per placeholder
+     * @return the parsed ranges, in the same order
+     */
+    public static Range[] parse(String[] seqs) {
+        Range[] ranges = new Range[seqs.length];
+        for (int i = 0; i < seqs.length; i++) {
+            ranges[i] = parse(seqs[i]);
+        }
+        return ranges;
+    }
+
+    public int getStart() {
+        return start;
+    }
+
+    public int getEnd() {
+        return end;
+    }
+
+    public boolean isAlpha() {
+        return alpha;
+    }
+
+    /**
+     * @return the number of values in this range, zero if the end comes before the start
+     */
+    public int size() {
+        return end < start ? 0 : end - start + 1;
+    }
+
+    /**
+     * @return the most characters any value in this range renders to
+     */
+    public int maxWidth() {
+        return alpha ? 1 : Math.max(width(start), width(end));
+    }
+
+    /**
+     * Writes the textual form of a value in this range straight into a
+     * character array, without going through an intermediate string.
+     *
+     * @param value the value (an integer, or a character code for alpha ranges)
+     * @param dst   where to write, must have room for <code>maxWidth()</code> characters
+     * @param pos   the position to start writing at
+     * @return the position after the last character written
+     */
+    public int write(int value, char[] dst, int pos) {
+        if (alpha) {
+            dst[pos] = (char) value;
+            return pos + 1;
+        }
+
+        long v = value;
+        if (v < 0) {
+            dst[pos++] = '-';
+            v = -v;
+        }
+        int end = pos + digits(v);
+        for (int i = end - 1; i >= pos; i--) {
+            dst[i] = (char) ('0' + (v % 10));
+            v /= 10;
+        }
+        return end;
+    }
+
+    private static int width(int value) {
+        long v = value;
+        return v < 0 ? digits(-v) + 1 : digits(v);
+    }
+
+    private static int digits(long v) {
+        int n = 1;
+        while (v >= 10) {
+            v /= 10;
+            n++;
+        }
+        return n;
+    }
+
+    public String toString() {
+        return alpha ? "A:" + (char) start + ".." + (char) end : start + ".." + end;
+    }
+}
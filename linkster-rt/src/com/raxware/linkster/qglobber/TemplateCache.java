@@ -0,0 +1,143 @@
+/*
+ Licensed to the Apache Software Foundation (ASF) under one
+ or more contributor license agreements.  See the NOTICE file
+ distributed with this work for additional information
+ regarding copyright ownership.  The ASF licenses this file
+ to you under the Apache License, Version 2.0 (the
+ "License"); you may not use this file except in compliance
+ with the License.  You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing,
+ software distributed under the License is distributed on an
+ "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ KIND, either express or implied.  See the License for the
+ specific language governing permissions and limitations
+ under the License.
+ */
+package com.raxware.linkster.qglobber;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded, least recently used cache of compiled templates.
+ * <p>
+ * Operators tend to compile the same template and ranges over and over while
+ * they work on a job, and Copy Info sends the same template to the other side
+ * to be compiled again.  Whitespace is stripped from the ranges before
+ * anything else, and the stripped ranges are both what is compiled and what
+ * the entry is keyed by, so <code>1..5, 1..3</code> and <code>1..5,1..3</code>
+ * share an entry and always compile the same.  A compiled template holds its
+ * ranges and literals, not its rows, so each entry is small and the cache is
+ * bounded by its number of entries; the least recently used are evicted
+ * first.
+ * <p>
+ * All methods are synchronized; the cache is shared by every caller of the
+ * service.
+ *
+ * @author Will Chapman
+ */
+public class TemplateCache {
+
+    private final Map<String, CompiledTemplate> map = new LinkedHashMap<String, CompiledTemplate>(16, 0.75f, true) {
+        protected boolean removeEldestEntry(Map.Entry<String, CompiledTemplate> eldest) {
+            return size() > maxEntries;
+        }
+    };
+    private int maxEntries;
+    private long hits;
+    private long misses;
+
+    /**
+     * @param maxEntries the most entries to hold
+     */
+    public TemplateCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Changes the limit, evicting straight away if the cache is now over it.
+     *
+     * @param maxEntries the most entries to hold
+     */
+    public synchronized void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+        Iterator<String> it = map.keySet().iterator();
+        while (map.size() > maxEntries && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    /**
+     * @param t the template
+     * @param s the sequences, one per placeholder
+     * @return the cached compiled template, compiling it on a miss
+     * @throws IllegalArgumentException if the template or a sequence can not be parsed
+     */
+    public synchronized CompiledTemplate compile(String t, String[] s) {
+        String[] seqs = strip(s);
+        String key = key(t, seqs);
+        CompiledTemplate compiled = map.get(key);
+        if (compiled != null) {
+            hits++;
+            return compiled;
+        }
+
+        misses++;
+        compiled = CompiledTemplate.compile(t, seqs);
+        map.put(key, compiled);
+        return compiled;
+    }
+
+    /**
+     * @param s the sequences
+     * @return the sequences without whitespace
+     */
+    static String[] strip(String[] s) {
+        String[] stripped = new String[s.length];
+        for (int i = 0; i < s.length; i++) {
+            stripped[i] = s[i].replaceAll("\\s", "");
+        }
+        return stripped;
+    }
+
+    /**
+     * @param t    the template
+     * @param seqs the sequences, already stripped
+     * @return the key for the pair
+     */
+    static String key(String t, String[] seqs) {
+        StringBuilder sb = new StringBuilder(t.length() + seqs.length * 8);
+        sb.append(t).append('\u0000');
+        for (int i = 0; i < seqs.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(seqs[i]);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Drops every entry.  The hit and miss counts are kept.
+     */
+    public synchronized void clear() {
+        map.clear();
+    }
+
+    public synchronized int getEntryCount() {
+        return map.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ Licensed to the Apache Software Foundation (ASF) under one
+ or more contributor license agreements.  See the NOTICE file
+ distributed with this work for additional information
+ regarding copyright ownership.  The ASF licenses this file
+ to you under the Apache License, Version 2.0 (the
+ "License"); you may not use this file except in compliance
+ with the License.  You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing,
+ software distributed under the License is distributed on an
+ "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ KIND, either express or implied.  See the License for the
+ specific language governing permissions and limitations
+ under the License.
+ */
+package com.raxware.linkster.engine;
+
+import javax.baja.nre.annotations.NiagaraType;
+import javax.baja.sys.Sys;
+import javax.baja.sys.Type;
+import javax.baja.test.BTestNg;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Checks the histogram's statistics against the exact ones.
+ *
+ * @author Will Chapman
+ */
+@NiagaraType
+@Test
+public class BLatencyHistogramTest extends BTestNg {
+
+    public void testEmpty() {
+        LatencyHistogram h = new LatencyHistogram();
+        Assert.assertEquals(h.getCount(), 0L);
+        Assert.assertEquals(h.getMeanMicros(), 0.0);
+        Assert.assertEquals(h.getMaxMicros(), 0.0);
+        Assert.assertEquals(h.getPercentileMicros(0.99), 0.0);
+    }
+
+    public void testCountMeanAndMax() {
+        LatencyHistogram h = new LatencyHistogram();
+        h.record(1000);
+        h.record(3000);
+        h.record(-5);
+        Assert.assertEquals(h.getCount(), 3L);
+        Assert.assertEquals(h.getMeanMicros(), 4000 / 1000.0 / 3, 1e-9);
+        Assert.assertEquals(h.getMaxMicros(), 3.0);
+    }
+
+    public void testPercentilesWithinABucket() {
+        Random random = new Random(7);
+        long[] times = new long[10000];
+        LatencyHistogram h = new LatencyHistogram();
+        for (int i = 0; i < times.length; i++) {
+            // log-uniform from 1us to about 1s
+            times[i] = (long) Math.pow(10, 3 + random.nextDouble() * 6);
+            h.record(times[i]);
+        }
+        Arrays.sort(times);
+
+        double[] fractions = {0.5, 0.9, 0.95, 0.99, 0.999, 1.0};
+        for (double fraction : fractions) {
+            double exact = times[(int) Math.ceil(fraction * times.length) - 1] / 1000.0;
+            double reported = h.getPercentileMicros(fraction);
+            Assert.assertTrue(reported >= exact, fraction + ": " + reported + " < " + exact);
+            Assert.assertTrue(reported <= exact * 2, fraction + ": " + reported + " > 2 x " + exact);
+            Assert.assertTrue(reported <= h.getMaxMicros());
+        }
+        Assert.assertEquals(h.getPercentileMicros(1.0), h.getMaxMicros());
+    }
+
+    public void testReset() {
+        LatencyHistogram h = new LatencyHistogram();
+        h.record(123456);
+        h.reset();
+        Assert.assertEquals(h.getCount(), 0L);
+        Assert.assertEquals(h.getMaxMicros(), 0.0);
+        Assert.assertEquals(h.getPercentileMicros(0.5), 0.0);
+    }
+
+    /*+ ------------ BEGIN BAJA AUTO GENERATED CODE ------------ +*/
+    /*@ $com.raxware.linkster.engine.BLatencyHistogramTest(2906883136)1.0$ @*/
+    /* Generated Sun Oct 18 09:30:00 EDT 2026 by Slot-o-Matic (c) Tridium, Inc. 2012 */
+
+////////////////////////////////////////////////////////////////
+// Type
+////////////////////////////////////////////////////////////////
+    public Type getType() {
+        return TYPE;
+    }
+
+    public static final Type TYPE = Sys.loadType(BLatencyHistogramTest.class);
+
+    /*+ ------------ END BAJA AUTO GENERATED CODE -------------- +*/
+}
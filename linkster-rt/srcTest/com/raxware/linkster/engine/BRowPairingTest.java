@@ -0,0 +1,150 @@
+/*
+ Licensed to the Apache Software Foundation (ASF) under one
+ or more contributor license agreements.  See the NOTICE file
+ distributed with this work for additional information
+ regarding copyright ownership.  The ASF licenses this file
+ to you under the Apache License, Version 2.0 (the
+ "License"); you may not use this file except in compliance
+ with the License.  You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing,
+ software distributed under the License is distributed on an
+ "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ KIND, either express or implied.  See the License for the
+ specific language governing permissions and limitations
+ under the License.
+ */
+package com.raxware.linkster.engine;
+
+import com.raxware.linkster.qglobber.CompiledTemplate;
+import com.raxware.linkster.qglobber.Globber;
+
+import javax.baja.nre.annotations.NiagaraType;
+import javax.baja.sys.Sys;
+import javax.baja.sys.Type;
+import javax.baja.test.BTestNg;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks each kind of pairing against the obvious nested loop.
+ *
+ * @author Will Chapman
+ */
+@NiagaraType
+@Test
+public class BRowPairingTest extends BTestNg {
+
+    private static final CompiledTemplate AHUS = Globber.compile("slot:/AHU{[]}", new String[]{"1..3"});
+    private static final CompiledTemplate VAVS = Globber.compile("slot:/VAV{[]}_{[]}", new String[]{"1..3", "1..40"});
+    private static final CompiledTemplate VAVS_SWAPPED = Globber.compile("slot:/Box{[]}_{[]}", new String[]{"1..40", "1..3"});
+
+    public void testPositional() {
+        CompiledTemplate to = Globber.compile("slot:/Damper{[]}", new String[]{"1..120"});
+        RowPairing pairing = RowPairing.make(VAVS, to, "");
+        Assert.assertTrue(pairing.isPositional());
+        Assert.assertEquals(pairing.size(), 120L);
+        List<long[]> pairs = pairs(pairing);
+        Assert.assertEquals(pairs.size(), 120);
+        for (int i = 0; i < pairs.size(); i++) {
+            Assert.assertEquals(pairs.get(i), new long[]{i, i});
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testPositionalSizesMustMatch() {
+        RowPairing.make(AHUS, VAVS, "").size();
+    }
+
+    public void testOneToMany() {
+        check(AHUS, VAVS, "1=1", new int[]{0}, new int[]{0});
+        Assert.assertEquals(RowPairing.make(AHUS, VAVS, "1=1").size(), 120L);
+    }
+
+    public void testOneToOneInAnyOrder() {
+        check(VAVS, VAVS_SWAPPED, "1=2, 2=1", new int[]{0, 1}, new int[]{1, 0});
+        Assert.assertEquals(RowPairing.make(VAVS, VAVS_SWAPPED, "1=2,2=1").size(), 120L);
+    }
+
+    public void testEveryToEvery() {
+        check(VAVS, AHUS, "*", new int[0], new int[0]);
+        Assert.assertEquals(RowPairing.make(VAVS, AHUS, "*").size(), 360L);
+    }
+
+    public void testJoinWithNoPartners() {
+        CompiledTemplate others = Globber.compile("slot:/AHU{[]}", new String[]{"7..9"});
+        RowPairing pairing = RowPairing.make(others, VAVS, "1=1");
+        Assert.assertEquals(pairing.size(), 0L);
+        Assert.assertTrue(pairs(pairing).isEmpty());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testJoinPlaceholderOutOfRange() {
+        RowPairing.make(AHUS, VAVS, "2=1");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testJoinNotParsed() {
+        RowPairing.make(AHUS, VAVS, "1");
+    }
+
+    /**
+     * Compares a join with every pair whose coordinates agree on the given dimensions.
+     */
+    private static void check(CompiledTemplate from, CompiledTemplate to, String spec, int[] fromDims, int[] toDims) {
+        List<long[]> expected = new ArrayList<long[]>();
+        int[] f = new int[from.getDimensions()];
+        int[] t = new int[to.getDimensions()];
+        for (long i = 0; i < from.size(); i++) {
+            from.decode(i, f);
+            for (long j = 0; j < to.size(); j++) {
+                to.decode(j, t);
+                boolean match = true;
+                for (int d = 0; d < fromDims.length; d++) {
+                    match &= f[fromDims[d]] == t[toDims[d]];
+                }
+                if (match) {
+                    expected.add(new long[]{i, j});
+                }
+            }
+        }
+
+        RowPairing pairing = RowPairing.make(from, to, spec);
+        List<long[]> actual = pairs(pairing);
+        Assert.assertEquals(actual.size(), expected.size());
+        Assert.assertEquals(pairing.size(), (long) expected.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertEquals(actual.get(i), expected.get(i), "pair " + i);
+        }
+    }
+
+    private static List<long[]> pairs(RowPairing pairing) {
+        List<long[]> pairs = new ArrayList<long[]>();
+        RowPairing.Cursor c = pairing.cursor();
+        while (c.next()) {
+            pairs.add(new long[]{c.getFromIndex(), c.getToIndex()});
+        }
+        return pairs;
+    }
+
+    /*+ ------------ BEGIN BAJA AUTO GENERATED CODE ------------ +*/
+    /*@ $com.raxware.linkster.engine.BRowPairingTest(628371673)1.0$ @*/
+    /* Generated Sun Oct 18 09:30:00 EDT 2026 by Slot-o-Matic (c) Tridium, Inc. 2012 */
+
+////////////////////////////////////////////////////////////////
+// Type
+////////////////////////////////////////////////////////////////
+    public Type getType() {
+        return TYPE;
+    }
+
+    public static final Type TYPE = Sys.loadType(BRowPairingTest.class);
+
+    /*+ ------------ END BAJA AUTO GENERATED CODE -------------- +*/
+}
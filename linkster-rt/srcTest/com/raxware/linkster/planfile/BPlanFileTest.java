@@ -0,0 +1,257 @@
+/*
+ Licensed to the Apache Software Foundation (ASF) under one
+ or more contributor license agreements.  See the NOTICE file
+ distributed with this work for additional information
+ regarding copyright ownership.  The ASF licenses this file
+ to you under the Apache License, Version 2.0 (the
+ "License"); you may not use this file except in compliance
+ with the License.  You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing,
+ software distributed under the License is distributed on an
+ "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ KIND, either express or implied.  See the License for the
+ specific language governing permissions and limitations
+ under the License.
+ */
+package com.raxware.linkster.planfile;
+
+import com.raxware.linkster.engine.RowPairing;
+import com.raxware.linkster.qglobber.CompiledTemplate;
+import com.raxware.linkster.qglobber.Globber;
+
+import javax.baja.nre.annotations.NiagaraType;
+import javax.baja.sys.Sys;
+import javax.baja.sys.Type;
+import javax.baja.test.BTestNg;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Round trips link plan files through the binary format and through CSV.
+ *
+ * @author Will Chapman
+ */
+@NiagaraType
+@Test
+public class BPlanFileTest extends BTestNg {
+
+    private Path dir;
+
+    @BeforeMethod
+    public void makeDir() throws IOException {
+        dir = Files.createTempDirectory("linkster-planfile");
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void removeDir() throws IOException {
+        File[] files = dir.toFile().listFiles();
+        if (files != null) {
+            for (File f : files) {
+                Files.delete(f.toPath());
+            }
+        }
+        Files.delete(dir);
+    }
+
+    public void testBinaryRoundTrip() throws IOException {
+        List<LinkRecord> records = records(5000);
+        Path plan = write(records);
+        Assert.assertEquals(read(plan), records);
+        try (PlanFileReader reader = new PlanFileReader(plan)) {
+            Assert.assertEquals(reader.size(), 5000L);
+            Assert.assertEquals(reader.getBlockCount(), (5000 + PlanFile.BLOCK_RECORDS - 1) / PlanFile.BLOCK_RECORDS);
+        }
+    }
+
+    public void testCsvRoundTrip() throws IOException {
+        List<LinkRecord> records = records(5000);
+        Path plan = write(records);
+        Path csv = dir.resolve("plan.csv");
+        Path back = dir.resolve("back.lnkp");
+        Assert.assertEquals(PlanCsv.exportCsv(plan, csv), 5000L);
+        Assert.assertEquals(PlanCsv.importCsv(csv, back), 5000L);
+        Assert.assertEquals(read(back), records);
+    }
+
+    public void testSeek() throws IOException {
+        List<LinkRecord> records = records(3 * PlanFile.BLOCK_RECORDS + 17);
+        Path plan = write(records);
+        long[] targets = {0, 1, PlanFile.BLOCK_RECORDS - 1, PlanFile.BLOCK_RECORDS, PlanFile.BLOCK_RECORDS + 1,
+                2 * PlanFile.BLOCK_RECORDS + 500, records.size() - 1};
+        try (PlanFileReader reader = new PlanFileReader(plan)) {
+            for (long target : targets) {
+                reader.seek(target);
+                Assert.assertEquals(reader.position(), target);
+                Assert.assertEquals(reader.next(), records.get((int) target), "record " + target);
+            }
+            reader.seek(records.size());
+            Assert.assertNull(reader.next());
+            reader.seek(0);
+            Assert.assertEquals(reader.next(), records.get(0));
+        }
+    }
+
+    @Test(expectedExceptions = IndexOutOfBoundsException.class)
+    public void testSeekPastEnd() throws IOException {
+        try (PlanFileReader reader = new PlanFileReader(write(records(10)))) {
+            reader.seek(11);
+        }
+    }
+
+    public void testEmptyFile() throws IOException {
+        Path plan = write(new ArrayList<LinkRecord>());
+        try (PlanFileReader reader = new PlanFileReader(plan)) {
+            Assert.assertEquals(reader.size(), 0L);
+            Assert.assertEquals(reader.getBlockCount(), 0);
+            Assert.assertNull(reader.next());
+        }
+        Path csv = dir.resolve("empty.csv");
+        Assert.assertEquals(PlanCsv.exportCsv(plan, csv), 0L);
+        Assert.assertEquals(new String(Files.readAllBytes(csv), StandardCharsets.UTF_8), PlanCsv.HEADER + "\r\n");
+    }
+
+    public void testCorruptBlockIsDetected() throws IOException {
+        Path plan = write(records(5000));
+        // flip a byte in the middle of the first block's payload
+        try (FileChannel channel = FileChannel.open(plan, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long at = PlanFile.HEADER_SIZE + PlanFile.BLOCK_HEADER_SIZE + 100;
+            ByteBuffer b = ByteBuffer.allocate(1);
+            channel.read(b, at);
+            b.put(0, (byte) (b.get(0) ^ 0xFF));
+            b.rewind();
+            channel.write(b, at);
+        }
+        try (PlanFileReader reader = new PlanFileReader(plan)) {
+            reader.next();
+            Assert.fail("corrupt block was read");
+        } catch (IOException e) {
+            Assert.assertTrue(e.getMessage().contains("block 0"), e.getMessage());
+        }
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testNotAPlanFile() throws IOException {
+        Path other = dir.resolve("other.csv");
+        Files.write(other, "sourceOrd,sourceSlot,targetOrd,targetSlot\r\nthis is not a plan file at all\r\n"
+                .getBytes(StandardCharsets.UTF_8));
+        new PlanFileReader(other).close();
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testTruncatedFile() throws IOException {
+        Path plan = write(records(5000));
+        try (FileChannel channel = FileChannel.open(plan, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 8);
+        }
+        new PlanFileReader(plan).close();
+    }
+
+    public void testCsvQuoting() throws IOException {
+        Path csv = dir.resolve("quoted.csv");
+        Files.write(csv, ("sourceOrd,sourceSlot,targetOrd,targetSlot\n"
+                + "\"slot:/A,B\",out,\"slot:/say \"\"hi\"\"\",in1\r\n"
+                + "\"slot:/line\r\nbreak\",out,slot:/C,in2\n"
+                + "\n"
+                + "slot:/D,out,slot:/E,in3").getBytes(StandardCharsets.UTF_8));
+        Path plan = dir.resolve("quoted.lnkp");
+        Assert.assertEquals(PlanCsv.importCsv(csv, plan), 3L);
+
+        List<LinkRecord> expected = new ArrayList<LinkRecord>();
+        expected.add(new LinkRecord("slot:/A,B", "out", "slot:/say \"hi\"", "in1"));
+        expected.add(new LinkRecord("slot:/line\r\nbreak", "out", "slot:/C", "in2"));
+        expected.add(new LinkRecord("slot:/D", "out", "slot:/E", "in3"));
+        Assert.assertEquals(read(plan), expected);
+    }
+
+    public void testCsvWrongFieldCount() throws IOException {
+        Path csv = dir.resolve("short.csv");
+        Files.write(csv, "slot:/A,out,slot:/B,in1\nslot:/A,out,slot:/B\n".getBytes(StandardCharsets.UTF_8));
+        try {
+            PlanCsv.importCsv(csv, dir.resolve("short.lnkp"));
+            Assert.fail("short line was imported");
+        } catch (IOException e) {
+            Assert.assertTrue(e.getMessage().startsWith("Line 2 "), e.getMessage());
+        }
+    }
+
+    public void testGenerateMatchesPairing() throws IOException {
+        CompiledTemplate from = Globber.compile("slot:/F{[]}/VAV{[]}.out", new String[]{"1..5", "1..40"});
+        CompiledTemplate to = Globber.compile("slot:/F{[]}/VAV{[]}/Damper.in10", new String[]{"1..5", "1..40"});
+        Path plan = dir.resolve("generated.lnkp");
+        Assert.assertEquals(PlanFileTool.generate(RowPairing.make(from, to, ""), plan), 200L);
+
+        List<LinkRecord> records = read(plan);
+        Assert.assertEquals(records.size(), 200);
+        Assert.assertEquals(records.get(0), new LinkRecord("slot:/F1/VAV1", "out", "slot:/F1/VAV1/Damper", "in10"));
+        Assert.assertEquals(records.get(199), new LinkRecord("slot:/F5/VAV40", "out", "slot:/F5/VAV40/Damper", "in10"));
+        Assert.assertEquals(PlanFileTool.verify(plan), 200L);
+    }
+
+    /**
+     * Rows like a real plan's, with the odd field that needs quoting in CSV or
+     * is outside the basic multilingual plane.
+     */
+    private static List<LinkRecord> records(int n) {
+        List<LinkRecord> records = new ArrayList<LinkRecord>(n);
+        for (int i = 0; i < n; i++) {
+            String source = "station:|slot:/Building" + (i / 1000) + "/Floor" + (i / 50 % 20) + "/VAV" + i;
+            String target = i % 97 == 0 ? "station:|slot:/Odd,\"Name\"/\u00e9\ud83d\ude00" + i
+                    : source + "/Damper";
+            records.add(new LinkRecord(source, i % 3 == 0 ? "out" : "status", target, "in" + (i % 16 + 1)));
+        }
+        return records;
+    }
+
+    private Path write(List<LinkRecord> records) throws IOException {
+        Path plan = Files.createTempFile(dir, "plan", ".lnkp");
+        try (PlanFileWriter writer = new PlanFileWriter(plan)) {
+            for (LinkRecord r : records) {
+                writer.write(r);
+            }
+            Assert.assertEquals(writer.size(), (long) records.size());
+        }
+        return plan;
+    }
+
+    private static List<LinkRecord> read(Path plan) throws IOException {
+        List<LinkRecord> records = new ArrayList<LinkRecord>();
+        try (PlanFileReader reader = new PlanFileReader(plan)) {
+            for (LinkRecord r = reader.next(); r != null; r = reader.next()) {
+                records.add(r);
+            }
+        }
+        return records;
+    }
+
+    /*+ ------------ BEGIN BAJA AUTO GENERATED CODE ------------ +*/
+    /*@ $com.raxware.linkster.planfile.BPlanFileTest(4252999313)1.0$ @*/
+    /* Generated Sun Oct 18 09:30:00 EDT 2026 by Slot-o-Matic (c) Tridium, Inc. 2012 */
+
+////////////////////////////////////////////////////////////////
+// Type
+////////////////////////////////////////////////////////////////
+    public Type getType() {
+        return TYPE;
+    }
+
+    public static final Type TYPE = Sys.loadType(BPlanFileTest.class);
+
+    /*+ ------------ END BAJA AUTO GENERATED CODE -------------- +*/
+}
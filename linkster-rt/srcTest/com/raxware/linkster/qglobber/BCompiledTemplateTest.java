@@ -0,0 +1,189 @@
+/*
+ Licensed to the Apache Software Foundation (ASF) under one
+ or more contributor license agreements.  See the NOTICE file
+ distributed with this work for additional information
+ regarding copyright ownership.  The ASF licenses this file
+ to you under the Apache License, Version 2.0 (the
+ "License"); you may not use this file except in compliance
+ with the License.  You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing,
+ software distributed under the License is distributed on an
+ "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ KIND, either express or implied.  See the License for the
+ specific language governing permissions and limitations
+ under the License.
+ */
+package com.raxware.linkster.qglobber;
+
+import javax.baja.nre.annotations.NiagaraType;
+import javax.baja.sys.Sys;
+import javax.baja.sys.Type;
+import javax.baja.test.BTestNg;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+/**
+ * Checks the compiled expansion, and everything built on it, against the
+ * original <code>Globber.explodeSequence</code>.
+ *
+ * @author Will Chapman
+ */
+@NiagaraType
+@Test
+public class BCompiledTemplateTest extends BTestNg {
+
+    @DataProvider(name = "templates")
+    public Object[][] templates() {
+        return new Object[][]{
+                {"slot:/VAV{[]}", "1..20"},
+                {"slot:/VAV{[]}00", "1..20"},
+                {"slot:/AHU{[]}", "A:A..F"},
+                {"slot:/Building{[]}/Floor{[]}/VAV{[]}{[]}", "A:A..C,1..5,1..5,A:A..B"},
+                {"slot:/B{[]}/F{[]}/VAV{[]}00", "A:A..C,1..10,1..10"},
+                {"slot:/VAV{[]}{[]}", "1..20,A:A..D"},
+                {"slot:/P{[]}/x", "-5..12"},
+                {"slot:/Single{[]}", "7..7"}
+        };
+    }
+
+    @Test(dataProvider = "templates")
+    public void testGetMatchesExplodeSequence(String t, String ranges) {
+        List<String> expected = explode(t, ranges);
+        CompiledTemplate c = Globber.compile(t, Globber.splitRanges(ranges));
+        Assert.assertEquals(c.size(), expected.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertEquals(c.get(i), expected.get(i), "row " + i);
+        }
+    }
+
+    @Test(dataProvider = "templates")
+    public void testIteratorMatchesExplodeSequence(String t, String ranges) {
+        List<String> rows = new ArrayList<String>();
+        Iterator<String> it = Globber.iterator(t, Globber.splitRanges(ranges));
+        while (it.hasNext()) {
+            rows.add(it.next());
+        }
+        Assert.assertEquals(rows, explode(t, ranges));
+    }
+
+    @Test(dataProvider = "templates")
+    public void testStreamsMatchExplodeSequence(String t, String ranges) {
+        List<String> expected = explode(t, ranges);
+        String[] s = Globber.splitRanges(ranges);
+        Assert.assertEquals(Globber.stream(t, s, false).collect(Collectors.toList()), expected);
+        Assert.assertEquals(Globber.stream(t, s, true).collect(Collectors.toList()), expected);
+    }
+
+    @Test(dataProvider = "templates")
+    public void testVisitMatchesExplodeSequence(String t, String ranges) {
+        final List<String> rows = new ArrayList<String>();
+        long n = Globber.visit(t, Globber.splitRanges(ranges), new GlobVisitor() {
+            public boolean visit(long index, int[] coords, CharSequence ord) {
+                Assert.assertEquals(index, rows.size());
+                rows.add(ord.toString());
+                return true;
+            }
+        });
+        Assert.assertEquals(n, rows.size());
+        Assert.assertEquals(rows, explode(t, ranges));
+    }
+
+    @Test(dataProvider = "templates")
+    public void testDecodeEncodeRoundTrip(String t, String ranges) {
+        CompiledTemplate c = Globber.compile(t, Globber.splitRanges(ranges));
+        int[] coords = new int[c.getDimensions()];
+        int[] odometer = new int[c.getDimensions()];
+        c.first(odometer);
+        for (long i = 0; i < c.size(); i++) {
+            c.decode(i, coords);
+            Assert.assertEquals(coords, odometer, "row " + i);
+            Assert.assertEquals(c.encode(coords), i);
+            Assert.assertEquals(c.render(coords, c.newBuffer()).toString(), c.get(i));
+            Assert.assertTrue(c.get(i).length() <= c.getMaxLength());
+            Assert.assertEquals(c.increment(odometer), i + 1 < c.size());
+        }
+    }
+
+    public void testSpliteratorSplitsCoverEveryRowOnce() {
+        String t = "slot:/Building{[]}/Floor{[]}/VAV{[]}";
+        String ranges = "A:A..J,1..20,1..30";
+        List<String> rows = new ArrayList<String>();
+        collect(Globber.spliterator(t, Globber.splitRanges(ranges)), rows);
+        Assert.assertEquals(rows, explode(t, ranges));
+    }
+
+    public void testSpliteratorReportsExactSize() {
+        Spliterator<String> s = Globber.spliterator("slot:/VAV{[]}/P{[]}", new String[]{"1..100", "1..50"});
+        Assert.assertEquals(s.getExactSizeIfKnown(), 5000L);
+        Spliterator<String> prefix = s.trySplit();
+        Assert.assertNotNull(prefix);
+        Assert.assertEquals(prefix.getExactSizeIfKnown() + s.getExactSizeIfKnown(), 5000L);
+        Assert.assertTrue(s.hasCharacteristics(Spliterator.ORDERED | Spliterator.SIZED));
+    }
+
+    public void testVisitStopsWhenAsked() {
+        long n = Globber.visit("slot:/VAV{[]}", new String[]{"1..100"}, new GlobVisitor() {
+            public boolean visit(long index, int[] coords, CharSequence ord) {
+                return index < 9;
+            }
+        });
+        Assert.assertEquals(n, 10L);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testTooFewRanges() {
+        Globber.compile("slot:/B{[]}/VAV{[]}", new String[]{"1..5"});
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidRange() {
+        Globber.compile("slot:/VAV{[]}", new String[]{"1-5"});
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testTooManyExpansions() {
+        // 10^20 rows wraps around to a positive long
+        Globber.compile("slot:/A{[]}/B{[]}/C{[]}/D{[]}", new String[]{"0..99999", "0..99999", "0..99999", "0..99999"});
+    }
+
+    private static void collect(Spliterator<String> s, List<String> rows) {
+        Spliterator<String> prefix = s.trySplit();
+        if (prefix == null) {
+            s.forEachRemaining(rows::add);
+            return;
+        }
+        collect(prefix, rows);
+        collect(s, rows);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> explode(String t, String ranges) {
+        return new ArrayList<String>(Globber.explodeSequence(t, Globber.splitRanges(ranges), 0));
+    }
+
+    /*+ ------------ BEGIN BAJA AUTO GENERATED CODE ------------ +*/
+    /*@ $com.raxware.linkster.qglobber.BCompiledTemplateTest(503994688)1.0$ @*/
+    /* Generated Sun Oct 18 09:30:00 EDT 2026 by Slot-o-Matic (c) Tridium, Inc. 2012 */
+
+////////////////////////////////////////////////////////////////
+// Type
+////////////////////////////////////////////////////////////////
+    public Type getType() {
+        return TYPE;
+    }
+
+    public static final Type TYPE = Sys.loadType(BCompiledTemplateTest.class);
+
+    /*+ ------------ END BAJA AUTO GENERATED CODE -------------- +*/
+}
@@ -0,0 +1,147 @@
+/*
+ Licensed to the Apache Software Foundation (ASF) under one
+ or more contributor license agreements.  See the NOTICE file
+ distributed with this work for additional information
+ regarding copyright ownership.  The ASF licenses this file
+ to you under the Apache License, Version 2.0 (the
+ "License"); you may not use this file except in compliance
+ with the License.  You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing,
+ software distributed under the License is distributed on an
+ "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ KIND, either express or implied.  See the License for the
+ specific language governing permissions and limitations
+ under the License.
+ */
+package com.raxware.linkster.qglobber;
+
+import javax.baja.nre.annotations.NiagaraType;
+import javax.baja.sys.Sys;
+import javax.baja.sys.Type;
+import javax.baja.test.BTestNg;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+/**
+ * Checks that every expansion matches back to its own coordinates.
+ *
+ * @author Will Chapman
+ */
+@NiagaraType
+@Test
+public class BGlobMatcherTest extends BTestNg {
+
+    @DataProvider(name = "templates")
+    public Object[][] templates() {
+        return new Object[][]{
+                {"slot:/VAV{[]}", "1..20"},
+                {"slot:/VAV{[]}/Damper", "1..120"},
+                {"slot:/VAV{[]}00", "1..20"},
+                {"slot:/VAV{[]}00/Damper", "1..20"},
+                {"slot:/B{[]}/F{[]}/VAV{[]}00", "A:A..C,1..10,1..10"},
+                {"slot:/VAV{[]}{[]}", "1..20,A:A..D"},
+                {"slot:/Building{[]}/Floor{[]}/VAV{[]}{[]}", "A:A..C,1..5,1..5,A:A..B"},
+                {"slot:/P{[]}0{[]}", "1..20,1..5"},
+                {"slot:/T{[]}/x", "-5..12"},
+                {"{[]}", "0..120"}
+        };
+    }
+
+    @Test(dataProvider = "templates")
+    public void testEveryExpansionMatches(String t, String ranges) {
+        CompiledTemplate c = Globber.compile(t, Globber.splitRanges(ranges));
+        GlobMatcher m = c.matcher();
+        int[] coords = new int[c.getDimensions()];
+        for (long i = 0; i < c.size(); i++) {
+            String row = c.get(i);
+            c.decode(i, coords);
+            Assert.assertEquals(m.match(row), coords, row);
+            Assert.assertEquals(c.indexOf(row), i, row);
+            Assert.assertTrue(m.matchesPrefix(row.substring(0, row.length() / 2)), row);
+        }
+    }
+
+    public void testTrailingDigitLiteral() {
+        CompiledTemplate c = Globber.compile("slot:/VAV{[]}00", new String[]{"1..20"});
+        Assert.assertEquals(c.indexOf("slot:/VAV100"), 0L);
+        Assert.assertEquals(c.indexOf("slot:/VAV1000"), 9L);
+        Assert.assertEquals(c.indexOf("slot:/VAV2000"), 19L);
+        Assert.assertEquals(c.indexOf("slot:/VAV10"), -1L);
+        Assert.assertEquals(c.indexOf("slot:/VAV2100"), -1L);
+        Assert.assertEquals(c.indexOf("slot:/VAV0100"), -1L);
+    }
+
+    public void testNumberThenAlpha() {
+        CompiledTemplate c = Globber.compile("slot:/VAV{[]}{[]}", new String[]{"1..20", "A:A..D"});
+        Assert.assertEquals(c.matcher().match("slot:/VAV12C"), new int[]{12, 'C'});
+        Assert.assertNull(c.matcher().match("slot:/VAV21A"));
+        Assert.assertNull(c.matcher().match("slot:/VAV12E"));
+    }
+
+    public void testDigitsBeforeALetterPlaceholder() {
+        // the letter range can not be a digit, so the number takes the run less the literal
+        GlobMatcher m = Globber.matcher("slot:/VAV{[]}00{[]}", new String[]{"1..20", "A:A..D"});
+        Assert.assertEquals(m.match("slot:/VAV1200B"), new int[]{12, 'B'});
+        Assert.assertEquals(m.match("slot:/VAV200D"), new int[]{2, 'D'});
+        Assert.assertNull(m.match("slot:/VAV2100A"));
+        Assert.assertNull(m.match("slot:/VAV12B"));
+    }
+
+    public void testLetterRangeOfDigits() {
+        // a letter range of digits takes the last digit of the run
+        GlobMatcher m = Globber.matcher("x{[]}{[]}", new String[]{"1..20", "A:0..9"});
+        Assert.assertEquals(m.match("x127"), new int[]{12, '7'});
+        Assert.assertEquals(m.match("x20"), new int[]{2, '0'});
+        Assert.assertNull(m.match("x1"));
+    }
+
+    public void testAdjacentNumbersPreferTheWidestFirst() {
+        GlobMatcher m = Globber.matcher("x{[]}{[]}", new String[]{"1..20", "1..20"});
+        Assert.assertEquals(m.match("x111"), new int[]{11, 1});
+        // 12 then 0 is out of range, so the first has to give a digit back
+        Assert.assertEquals(m.match("x120"), new int[]{1, 20});
+        Assert.assertEquals(m.match("x201"), new int[]{20, 1});
+        Assert.assertEquals(m.match("x1020"), new int[]{10, 20});
+        Assert.assertNull(m.match("x2121"));
+    }
+
+    public void testNoMatch() {
+        GlobMatcher m = Globber.matcher("slot:/F{[]}/VAV{[]}", new String[]{"1..5", "1..40"});
+        Assert.assertNull(m.match("slot:/F1/VAV41"));
+        Assert.assertNull(m.match("slot:/F1/VAV"));
+        Assert.assertNull(m.match("slot:/F1/VAV01"));
+        Assert.assertNull(m.match("slot:/F1/VAV1x"));
+        Assert.assertNull(m.match("slot:/G1/VAV1"));
+        Assert.assertFalse(m.matchesPrefix("slot:/F6/"));
+        Assert.assertFalse(m.matchesPrefix("slot:/G"));
+        Assert.assertTrue(m.matchesPrefix("slot:/F1/VA"));
+    }
+
+    public void testMatchRegion() {
+        GlobMatcher m = Globber.matcher("slot:/VAV{[]}00", new String[]{"1..20"});
+        String row = "slot:/VAV1500.out";
+        int[] coords = new int[1];
+        Assert.assertTrue(m.match(row, 0, row.lastIndexOf('.'), coords));
+        Assert.assertEquals(coords[0], 15);
+    }
+
+    /*+ ------------ BEGIN BAJA AUTO GENERATED CODE ------------ +*/
+    /*@ $com.raxware.linkster.qglobber.BGlobMatcherTest(2423446787)1.0$ @*/
+    /* Generated Sun Oct 18 09:30:00 EDT 2026 by Slot-o-Matic (c) Tridium, Inc. 2012 */
+
+////////////////////////////////////////////////////////////////
+// Type
+////////////////////////////////////////////////////////////////
+    public Type getType() {
+        return TYPE;
+    }
+
+    public static final Type TYPE = Sys.loadType(BGlobMatcherTest.class);
+
+    /*+ ------------ END BAJA AUTO GENERATED CODE -------------- +*/
+}
@@ -0,0 +1,133 @@
+/*
+ Licensed to the Apache Software Foundation (ASF) under one
+ or more contributor license agreements.  See the NOTICE file
+ distributed with this work for additional information
+ regarding copyright ownership.  The ASF licenses this file
+ to you under the Apache License, Version 2.0 (the
+ "License"); you may not use this file except in compliance
+ with the License.  You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing,
+ software distributed under the License is distributed on an
+ "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ KIND, either express or implied.  See the License for the
+ specific language governing permissions and limitations
+ under the License.
+ */
+package com.raxware.linkster.qglobber;
+
+import javax.baja.nre.annotations.NiagaraType;
+import javax.baja.sys.Sys;
+import javax.baja.sys.Type;
+import javax.baja.test.BTestNg;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks that the front coded table gives back exactly the rows put in.
+ *
+ * @author Will Chapman
+ */
+@NiagaraType
+@Test
+public class BOrdTableTest extends BTestNg {
+
+    public void testTemplateTableMatchesExpansion() {
+        CompiledTemplate c = Globber.compile("slot:/Building{[]}/Floor{[]}/VAV{[]}",
+                new String[]{"A:A..C", "1..12", "1..40"});
+        OrdTable table = c.toTable(".out");
+        Assert.assertEquals(table.size(), c.size());
+        int i = 0;
+        for (String row : table) {
+            Assert.assertEquals(row, c.get(i) + ".out", "row " + i);
+            Assert.assertEquals(table.get(i), row);
+            i++;
+        }
+        Assert.assertEquals(i, table.size());
+    }
+
+    public void testTemplateTableWithoutSuffix() {
+        CompiledTemplate c = Globber.compile("slot:/VAV{[]}", new String[]{"1..100"});
+        OrdTable table = OrdTable.of(c, null);
+        for (int i = 0; i < table.size(); i++) {
+            Assert.assertEquals(table.get(i), c.get(i));
+        }
+    }
+
+    public void testArbitraryRowsRoundTrip() {
+        Random random = new Random(42);
+        List<String> rows = new ArrayList<String>();
+        String previous = "";
+        for (int i = 0; i < 1000; i++) {
+            // mostly shared prefixes, some longer, some shorter, some empty
+            int keep = previous.isEmpty() ? 0 : random.nextInt(previous.length() + 1);
+            StringBuilder sb = new StringBuilder(previous.substring(0, keep));
+            int extra = random.nextInt(12);
+            for (int k = 0; k < extra; k++) {
+                sb.append((char) (random.nextBoolean() ? 'a' + random.nextInt(26) : 0x00e0 + random.nextInt(64)));
+            }
+            previous = sb.toString();
+            rows.add(previous);
+        }
+
+        OrdTable table = new OrdTable(4);
+        for (String row : rows) {
+            table.add(row);
+        }
+        table.trimToSize();
+        Assert.assertEquals(table.size(), rows.size());
+        OrdBuffer buf = new OrdBuffer(1);
+        for (int i = 0; i < rows.size(); i++) {
+            Assert.assertEquals(table.get(i, buf).toString(), rows.get(i), "row " + i);
+        }
+        List<String> iterated = new ArrayList<String>();
+        for (String row : table) {
+            iterated.add(row);
+        }
+        Assert.assertEquals(iterated, rows);
+    }
+
+    public void testEmptyTable() {
+        OrdTable table = new OrdTable();
+        Assert.assertEquals(table.size(), 0);
+        Assert.assertFalse(table.iterator().hasNext());
+    }
+
+    public void testAddAfterTrimmingEmptyTable() {
+        OrdTable table = new OrdTable();
+        table.trimToSize();
+        table.add("slot:/VAV1");
+        table.add("slot:/VAV2");
+        Assert.assertEquals(table.size(), 2);
+        Assert.assertEquals(table.get(1), "slot:/VAV2");
+    }
+
+    @Test(expectedExceptions = IndexOutOfBoundsException.class)
+    public void testGetPastEnd() {
+        OrdTable table = new OrdTable();
+        table.add("slot:/VAV1");
+        table.get(1);
+    }
+
+    /*+ ------------ BEGIN BAJA AUTO GENERATED CODE ------------ +*/
+    /*@ $com.raxware.linkster.qglobber.BOrdTableTest(1203538267)1.0$ @*/
+    /* Generated Sun Oct 18 09:30:00 EDT 2026 by Slot-o-Matic (c) Tridium, Inc. 2012 */
+
+////////////////////////////////////////////////////////////////
+// Type
+////////////////////////////////////////////////////////////////
+    public Type getType() {
+        return TYPE;
+    }
+
+    public static final Type TYPE = Sys.loadType(BOrdTableTest.class);
+
+    /*+ ------------ END BAJA AUTO GENERATED CODE -------------- +*/
+}
@@ -0,0 +1,118 @@
+/*
+ Licensed to the Apache Software Foundation (ASF) under one
+ or more contributor license agreements.  See the NOTICE file
+ distributed with this work for additional information
+ regarding copyright ownership.  The ASF licenses this file
+ to you under the Apache License, Version 2.0 (the
+ "License"); you may not use this file except in compliance
+ with the License.  You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing,
+ software distributed under the License is distributed on an
+ "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ KIND, either express or implied.  See the License for the
+ specific language governing permissions and limitations
+ under the License.
+ */
+package com.raxware.linkster.qglobber;
+
+import javax.baja.nre.annotations.NiagaraType;
+import javax.baja.sys.Sys;
+import javax.baja.sys.Type;
+import javax.baja.test.BTestNg;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Checks the hit and miss counts, the key normalization and eviction of the
+ * template cache.
+ *
+ * @author Will Chapman
+ */
+@NiagaraType
+@Test
+public class BTemplateCacheTest extends BTestNg {
+
+    public void testHitsAndMisses() {
+        TemplateCache cache = new TemplateCache(10);
+        CompiledTemplate first = cache.compile("slot:/VAV{[]}", new String[]{"1..5"});
+        Assert.assertEquals(cache.getMisses(), 1);
+        Assert.assertEquals(cache.getHits(), 0);
+
+        CompiledTemplate second = cache.compile("slot:/VAV{[]}", new String[]{"1..5"});
+        Assert.assertSame(second, first);
+        Assert.assertEquals(cache.getMisses(), 1);
+        Assert.assertEquals(cache.getHits(), 1);
+        Assert.assertEquals(cache.getEntryCount(), 1);
+    }
+
+    public void testWhitespaceSharesEntry() {
+        TemplateCache cache = new TemplateCache(10);
+        CompiledTemplate a = cache.compile("slot:/F{[]}/VAV{[]}", new String[]{"1..5", " 1..3"});
+        CompiledTemplate b = cache.compile("slot:/F{[]}/VAV{[]}", new String[]{"1..5", "1..3"});
+        Assert.assertSame(b, a);
+        Assert.assertEquals(cache.getEntryCount(), 1);
+        Assert.assertEquals(a.size(), 15);
+    }
+
+    public void testParseErrorsAreNotCached() {
+        TemplateCache cache = new TemplateCache(10);
+        for (int i = 0; i < 2; i++) {
+            try {
+                cache.compile("slot:/VAV{[]}", new String[]{"1..x"});
+                Assert.fail("1..x compiled");
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+        Assert.assertEquals(cache.getEntryCount(), 0);
+        Assert.assertEquals(cache.getHits(), 0);
+    }
+
+    public void testEvictsLeastRecentlyUsed() {
+        TemplateCache cache = new TemplateCache(2);
+        CompiledTemplate a = cache.compile("slot:/A{[]}", new String[]{"1..5"});
+        cache.compile("slot:/B{[]}", new String[]{"1..5"});
+        cache.compile("slot:/A{[]}", new String[]{"1..5"});
+        cache.compile("slot:/C{[]}", new String[]{"1..5"});
+        Assert.assertEquals(cache.getEntryCount(), 2);
+
+        // A was used after B, so B went
+        Assert.assertSame(cache.compile("slot:/A{[]}", new String[]{"1..5"}), a);
+        long misses = cache.getMisses();
+        cache.compile("slot:/B{[]}", new String[]{"1..5"});
+        Assert.assertEquals(cache.getMisses(), misses + 1);
+    }
+
+    public void testShrinkingTheLimitEvicts() {
+        TemplateCache cache = new TemplateCache(10);
+        for (int i = 0; i < 5; i++) {
+            cache.compile("slot:/VAV" + i + "_{[]}", new String[]{"1..5"});
+        }
+        cache.setMaxEntries(2);
+        Assert.assertEquals(cache.getEntryCount(), 2);
+
+        // the two most recent are the ones kept
+        long misses = cache.getMisses();
+        cache.compile("slot:/VAV4_{[]}", new String[]{"1..5"});
+        cache.compile("slot:/VAV3_{[]}", new String[]{"1..5"});
+        Assert.assertEquals(cache.getMisses(), misses);
+    }
+
+    /*+ ------------ BEGIN BAJA AUTO GENERATED CODE ------------ +*/
+    /*@ $com.raxware.linkster.qglobber.BTemplateCacheTest(34511775)1.0$ @*/
+    /* Generated Sun Oct 18 09:30:00 EDT 2026 by Slot-o-Matic (c) Tridium, Inc. 2012 */
+
+////////////////////////////////////////////////////////////////
+// Type
+////////////////////////////////////////////////////////////////
+    public Type getType() {
+        return TYPE;
+    }
+
+    public static final Type TYPE = Sys.loadType(BTemplateCacheTest.class);
+
+    /*+ ------------ END BAJA AUTO GENERATED CODE -------------- +*/
+}
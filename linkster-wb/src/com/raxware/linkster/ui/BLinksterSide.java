@@ -18,32 +18,66 @@
  */
 package com.raxware.linkster.ui;
 
+import com.raxware.linkster.BLinkPlan;
+import com.raxware.linkster.BLinksterService;
+import com.raxware.linkster.qglobber.CompiledTemplate;
 import com.raxware.linkster.qglobber.Globber;
 
 import javax.baja.gx.BFont;
 import javax.baja.gx.BImage;
 import javax.baja.naming.BOrd;
+import javax.baja.nre.annotations.NiagaraAction;
+import javax.baja.nre.annotations.NiagaraTopic;
 import javax.baja.nre.annotations.NiagaraType;
+import javax.baja.sys.Action;
 import javax.baja.sys.BIcon;
+import javax.baja.sys.BValue;
+import javax.baja.sys.Flags;
 import javax.baja.sys.Sys;
+import javax.baja.sys.Topic;
 import javax.baja.sys.Type;
 import javax.baja.ui.*;
 import javax.baja.ui.enums.BHalign;
 import javax.baja.ui.event.BKeyEvent;
+import javax.baja.ui.event.BWidgetEvent;
 import javax.baja.ui.list.BList;
 import javax.baja.ui.pane.BEdgePane;
 import javax.baja.ui.pane.BFlowPane;
 import javax.baja.ui.pane.BGridPane;
-import java.util.ArrayList;
+
+import java.awt.EventQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This will be the UI for a single "side" in the linkster service view.
  * One will constitute the "from" side, the other the "to" side.
+ * <p>
+ * The list recompiles by itself shortly after the template, range or slot
+ * stops changing; Compile does the same thing straight away.  Compiling runs
+ * on a background thread and hands the new list back to the UI thread, so
+ * typing never waits on it.
+ * <p>
+ * <code>compiledChanged</code> fires whenever the rows shown change, so a
+ * check done against the old rows is known to be out of date.
  *
  * @author Will Chapman
  */
 
 @NiagaraType
+@NiagaraAction(
+        name = "textModified",
+        parameterType = "BWidgetEvent",
+        defaultValue = "new BWidgetEvent()",
+        flags = Flags.HIDDEN
+)
+@NiagaraTopic(
+        name = "compiledChanged",
+        flags = Flags.HIDDEN
+)
 public class BLinksterSide extends BEdgePane {
 
     private String label;
@@ -55,6 +89,31 @@ public class BLinksterSide extends BEdgePane {
     private BList resultList;
     private BButton compileButton;
     private BButton clearListButton;
+    private CompiledTemplate compiled;
+    private String compiledTemplateText;
+    private String compiledRangeText;
+    private String compiledSlotText;
+    private BLinksterService service;
+    private BLabel countLabel;
+    private Future<?> pendingCompile;
+    private int generation;
+
+    /**
+     * How long typing has to pause before the list is recompiled, in milliseconds.
+     */
+    static final long DEBOUNCE = 300;
+
+    /**
+     * One thread compiles for every side, in the order they were asked for.
+     */
+    private static final ScheduledExecutorService compiler =
+            Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "Linkster:Compile");
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
 
     public BLinksterSide() {
         this("Default label");
@@ -67,7 +126,7 @@ public class BLinksterSide extends BEdgePane {
         txtTemplate = new BTextField("", 50, true);
         txtRange = new BTextField("", 50, true);
         txtSlot = new BTextField("", 50, true);
-        resultList = new BList();
+        resultList = new BList(new TemplateListModel(null));
         compileButton = new BButton();
         compileButton.setCommand(new CompileTemplateCommand(), true, true);
 
@@ -79,7 +138,7 @@ public class BLinksterSide extends BEdgePane {
         topControlsPane.add(null, txtTemplate);
         topControlsPane.add(null, new BLabel("Range:"));
         topControlsPane.add(null, txtRange);
-        topControlsPane.add(null, new BLabel("Slot"));
+        topControlsPane.add(null, new BLabel("Slot(s)"));
         topControlsPane.add(null, txtSlot);
 
         topControlsPane.setStretchColumn(1);
@@ -90,13 +149,95 @@ public class BLinksterSide extends BEdgePane {
         gridTop.add(null, topControlsPane);
         setTop(gridTop);
 
-        resultList = new BList();
         setCenter(resultList);
 
         BFlowPane fp = new BFlowPane(BHalign.center);
         fp.add(null, compileButton);
         fp.add(null, clearListButton);
+        countLabel = new BLabel("");
+        fp.add(null, countLabel);
         setBottom(fp);
+
+        // recompile as the user types, once they pause
+        linkTo(null, txtTemplate, BTextField.textModified, textModified);
+        linkTo(null, txtRange, BTextField.textModified, textModified);
+        linkTo(null, txtSlot, BTextField.textModified, textModified);
+    }
+
+    /**
+     * Restarts the wait before recompiling, so a burst of typing only
+     * recompiles once.
+     */
+    public void doTextModified(BWidgetEvent event) {
+        compile(DEBOUNCE);
+    }
+
+    /**
+     * Compiles the template, range and slot as they are typed now, unless
+     * that is what the list already shows, in place of any compile that has
+     * not reported back yet.
+     * <p>
+     * The text is read here, on the UI thread; the compile thread only
+     * sees the copy.  Nothing is expanded there either: parsing the ranges
+     * is all compiling takes, and the list renders the rows it shows by
+     * index.  Rows already rendered keep their text if only the ranges
+     * changed, see <code>TemplateListModel</code>.
+     *
+     * @param delay how long to wait first, in milliseconds
+     */
+    private void compile(long delay) {
+        cancelCompile();
+        String template = txtTemplate.getText();
+        String rangeText = txtRange.getText();
+        String slot = txtSlot.getText();
+        if (compiled != null && template.equals(compiledTemplateText) && rangeText.equals(compiledRangeText)
+                && slot.equals(compiledSlotText)) {
+            return;
+        }
+        Compile c = new Compile(++generation, template, rangeText, slot, (TemplateListModel) resultList.getModel());
+        pendingCompile = compiler.schedule(c, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the compile that is waiting, and makes sure one already running
+     * is thrown away when it reports back.
+     */
+    private void cancelCompile() {
+        generation++;
+        if (pendingCompile != null) {
+            pendingCompile.cancel(false);
+            pendingCompile = null;
+        }
+    }
+
+    /**
+     * Shows what a compile produced, unless something newer was typed or the
+     * list was cleared while it ran.  Runs on the UI thread.
+     */
+    private void show(Compile c) {
+        if (c.generation != generation) {
+            return;
+        }
+        pendingCompile = null;
+
+        // half typed ranges are common here, so a template that does not
+        // compile leaves the list alone
+        if (c.error != null) {
+            countLabel.setText("Invalid: " + c.error);
+            return;
+        }
+        resultList.setModel(c.model);
+        compiled = c.result;
+        compiledTemplateText = c.template;
+        compiledRangeText = c.rangeText;
+        compiledSlotText = c.slot;
+
+        StringBuilder s = new StringBuilder().append(getRowCount()).append(" rows");
+        if (c.previous.getItemCount() > 0 && (c.model.getAdded() > 0 || c.model.getRemoved() > 0)) {
+            s.append(" (+").append(c.model.getAdded()).append(", -").append(c.model.getRemoved()).append(')');
+        }
+        countLabel.setText(s.toString());
+        fireCompiledChanged(null);
     }
 
     public BTextField getTemplate() {
@@ -123,10 +264,45 @@ public class BLinksterSide extends BEdgePane {
         txtSlot.setText(txt);
     }
 
+    /**
+     * @param service the service whose template cache compiles should go through
+     */
+    public void setService(BLinksterService service) {
+        this.service = service;
+    }
+
     public BList getList() {
         return resultList;
     }
 
+    /**
+     * @return the number of rows the last compile produced, without touching the list
+     */
+    public int getRowCount() {
+        return resultList.getModel().getItemCount();
+    }
+
+    /**
+     * @return the template text the current rows were compiled from
+     */
+    public String getCompiledTemplateText() {
+        return compiledTemplateText;
+    }
+
+    /**
+     * @return the range text the current rows were compiled from
+     */
+    public String getCompiledRangeText() {
+        return compiledRangeText;
+    }
+
+    /**
+     * @return the slot text the current rows were compiled from
+     */
+    public String getCompiledSlotText() {
+        return compiledSlotText;
+    }
+
     /**
      * Command to clear the list
      *
@@ -145,7 +321,17 @@ public class BLinksterSide extends BEdgePane {
         }
 
         public CommandArtifact doInvoke() {
-            resultList.getModel().removeAllItems();
+            cancelCompile();
+            boolean changed = compiled != null;
+            compiled = null;
+            compiledTemplateText = null;
+            compiledRangeText = null;
+            compiledSlotText = null;
+            resultList.setModel(new TemplateListModel(null));
+            countLabel.setText("");
+            if (changed) {
+                fireCompiledChanged(null);
+            }
             return null;
         }
     }
@@ -168,81 +354,102 @@ public class BLinksterSide extends BEdgePane {
         }
 
         public CommandArtifact doInvoke() {
-            // clear the list
-            resultList.getModel().removeAllItems();
-
-            // get the data
-            String template = txtTemplate.getText();
-            String[] range = convertRange(txtRange.getText());
-            String slot = txtSlot.getText();
-
-            // which do i 'explode' ?
-            if (slot.indexOf("{[]}") > 0) {
-                // exploding the slot
-                ArrayList results = Globber.explodeNumericalSequence(slot, range);
-                for (int i = 0; i < results.size(); i++) {
-                    resultList.addItem(template + "." + results.get(i));
-                }
-            } else {
-                // exploding the 'template'
-                ArrayList results = Globber.explodeNumericalSequence(template, range);
-                for (int i = 0; i < results.size(); i++) {
-                    resultList.addItem(results.get(i) + "." + slot);
-                }
-            }
-
-            // need to update				
+            compile(0);
             return null;
         }
+    }
 
-        /**
-         * Takes the rules of the range and splits it into an array
-         * <p>
-         * slot:/Building{[]}/Floor{[]}/VAV{[]}
-         * So "1..2,1..10,1..25" will be converted into
-         * Object[0] = "1..2"
-         * Object[1] = "1..10"
-         * Object[2] = "1..25"
-         *
-         * @param range
-         * @return
-         */
-        private String[] convertRange(String range) {
-            String[] test = Globber.split(range, ',', false);
-            ArrayList valid = new ArrayList();
-
-            for (int i = 0; i < test.length; i++) {
-                if (validateRange(range)) {
-                    valid.add(test[i]);
-                }
-            }
-
-            //UGH !!
-            String[] convertedArray = new String[valid.size()];
-            for (int i = 0; i < valid.size(); i++) {
-                convertedArray[i] = (String) valid.get(i);
-            }
 
-            return convertedArray;
+    /**
+     * One compile of a copy of the text.  It runs on the compile thread and
+     * touches no widgets, then hands itself back to the UI thread.
+     */
+    private final class Compile implements Runnable {
+
+        final int generation;
+        final String template;
+        final String rangeText;
+        final String slot;
+        final TemplateListModel previous;
+        CompiledTemplate result;
+        TemplateListModel model;
+        String error;
+
+        Compile(int generation, String template, String rangeText, String slot, TemplateListModel previous) {
+            this.generation = generation;
+            this.template = template;
+            this.rangeText = rangeText;
+            this.slot = slot;
+            this.previous = previous;
         }
 
-        /**
-         * Tests for a start, end and two periods in the middle
-         *
-         * @param range
-         * @return
-         */
-        private boolean validateRange(String range) {
-            // need to implement
-            return true;
+        public void run() {
+            try {
+                // whichever of the template or the slot holds the
+                // placeholders is the one that gets exploded, so compile them
+                // together once.  The service caches the compiled form, so
+                // compiling the same thing again (or after Copy Info) is
+                // nearly free.  With a list of slots the rows show the first;
+                // the others are linked between the same components.
+                String pattern = template + "." + BLinkPlan.slotsOf(slot)[0];
+                String[] range = Globber.splitRanges(rangeText);
+                result = service != null ? service.compile(pattern, range) : Globber.compile(pattern, range);
+                model = new TemplateListModel(result, previous);
+            } catch (Exception e) {
+                error = e.getMessage();
+            }
+            EventQueue.invokeLater(new Runnable() {
+                public void run() {
+                    show(Compile.this);
+                }
+            });
         }
     }
 
-
     /*+ ------------ BEGIN BAJA AUTO GENERATED CODE ------------ +*/
     /*@ $com.raxware.linkster.ui.BLinksterSide(1630248303)1.0$ @*/
     /* Generated Thu Apr 17 20:40:54 EDT 2008 by Slot-o-Matic 2000 (c) Tridium, Inc. 2000 */
 ////////////////////////////////////////////////////////////////
+// Action "textModified"
+////////////////////////////////////////////////////////////////
+
+    /**
+     * Slot for the {@code textModified} action.
+     *
+     * @see #textModified(BWidgetEvent parameter)
+     */
+    public static final Action textModified = newAction(Flags.HIDDEN, new BWidgetEvent(), null);
+
+    /**
+     * Invoke the {@code textModified} action.
+     *
+     * @see #textModified
+     */
+    public void textModified(BWidgetEvent parameter) {
+        invoke(textModified, parameter, null);
+    }
+
+////////////////////////////////////////////////////////////////
+// Topic "compiledChanged"
+////////////////////////////////////////////////////////////////
+
+    /**
+     * Slot for the {@code compiledChanged} topic.
+     *
+     * @see #fireCompiledChanged
+     */
+    public static final Topic compiledChanged = newTopic(Flags.HIDDEN, null);
+
+    /**
+     * Fire an event for the {@code compiledChanged} topic.
+     *
+     * @see #compiledChanged
+     */
+    public void fireCompiledChanged(BValue event) {
+        fire(compiledChanged, event, null);
+    }
+
+////////////////////////////////////////////////////////////////
 // Type
 ////////////////////////////////////////////////////////////////
     public Type getType() {
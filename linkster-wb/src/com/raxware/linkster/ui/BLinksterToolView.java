@@ -18,11 +18,16 @@
  */
 package com.raxware.linkster.ui;
 
+import com.raxware.linkster.BLinkJob;
+import com.raxware.linkster.BLinkPlan;
+import com.raxware.linkster.BLinksterService;
+
 import javax.baja.gx.BImage;
+import javax.baja.job.BJobState;
 import javax.baja.log.Log;
 import javax.baja.naming.BOrd;
-import javax.baja.naming.OrdTarget;
 import javax.baja.nre.annotations.AgentOn;
+import javax.baja.nre.annotations.NiagaraAction;
 import javax.baja.nre.annotations.NiagaraType;
 import javax.baja.sys.*;
 import javax.baja.ui.*;
@@ -31,25 +36,65 @@ import javax.baja.ui.pane.BEdgePane;
 import javax.baja.ui.pane.BGridPane;
 import javax.baja.ui.pane.BSplitPane;
 import javax.baja.ui.pane.BTextEditorPane;
-import javax.baja.workbench.BWbShell;
 import javax.baja.workbench.view.BWbView;
 
+import java.awt.EventQueue;
+import java.io.File;
+
 
+/**
+ * The Linkster tool: a "from" side, a "to" side and the commands that run
+ * the plan they describe as jobs in the station.
+ * <p>
+ * The view checks on the job it last submitted every <code>JOB_POLL</code>,
+ * adding its progress and, once it is done, its summary to the results.  Link
+ * is only enabled once an analysis of the plan has finished successfully, and
+ * only until either side's rows change.
+ *
+ * @author Will Chapman
+ */
 @NiagaraType(
         agent = @AgentOn(
                 types = "linkster:LinksterService"
         )
 )
+@NiagaraAction(
+        name = "checkJob",
+        flags = Flags.HIDDEN
+)
+@NiagaraAction(
+        name = "sideChanged",
+        flags = Flags.HIDDEN
+)
 public class BLinksterToolView extends BWbView {
 
     private BLinksterSide linkFrom;
     private BLinksterSide linkTo;
     private BButton copyButton;
     private BTextEditorPane resultsPane;
+    private ResultsConsole console;
+    private BButton saveLogButton;
     private BButton analyzeButton;
+    private BButton dryRunButton;
     private BButton linkButton;
+    private BTextField joinText;
+    private BCheckBox reconcileCheck;
+    private BCheckBox removeStaleCheck;
 
-    private BOrd rootOrd;
+    private BLinksterService service;
+
+    private volatile BLinkJob watchedJob;
+    private String watchedName;
+    private int watchedProgress;
+    private Clock.Ticket jobTicket;
+    private boolean analysisCurrent;
+
+    private static final String ANALYSIS = "Analysis";
+
+    /**
+     * How often a submitted job is checked on.
+     */
+    static final BRelTime JOB_POLL = BRelTime.makeSeconds(1);
 
     private static final Log log = Log.getLog("linkster");
 
@@ -64,9 +109,10 @@ public class BLinksterToolView extends BWbView {
     public BWidget generateContent() {
         linkFrom = new BLinksterSide("Link From");
         linkTo = new BLinksterSide("Link To");
-
-        BWbShell shell = BWbShell.getWbShell(this);
-        rootOrd = shell.getActiveOrd();
+        linkFrom.setService(service);
+        linkTo.setService(service);
+        linkTo(null, linkFrom, BLinksterSide.compiledChanged, sideChanged);
+        linkTo(null, linkTo, BLinksterSide.compiledChanged, sideChanged);
 
         copyButton = new BButton();
         copyButton.setCommand(new CopyInfoCommand(), true, true);
@@ -74,18 +120,30 @@ public class BLinksterToolView extends BWbView {
         analyzeButton = new BButton();
         analyzeButton.setCommand(new AnalyzeCommand(), true, true);
 
+        dryRunButton = new BButton();
+        dryRunButton.setCommand(new DryRunCommand(), true, true);
+
         linkButton = new BButton();
         linkButton.setCommand(new LinkCommand(), true, true);
         linkButton.getCommand().setEnabled(false);
 
+        joinText = new BTextField("", 8);
+        reconcileCheck = new BCheckBox("Reconcile");
+        removeStaleCheck = new BCheckBox("Remove Stale");
+
         BSplitPane splitPane = new BSplitPane(BOrientation.vertical, 75.0);
 
         BGridPane center = new BGridPane(1);
         center.add(null, copyButton);
         center.add(null, analyzeButton);
+        center.add(null, dryRunButton);
         center.add(null, linkButton);
+        center.add(null, new BLabel("Join (e.g. 1=1):"));
+        center.add(null, joinText);
+        center.add(null, reconcileCheck);
+        center.add(null, removeStaleCheck);
         center.add(null, new BNullWidget());
-        center.setStretchRow(3);
+        center.setStretchRow(8);
 
         BEdgePane pane = new BEdgePane();
         pane.setRight(linkTo);
@@ -94,7 +152,14 @@ public class BLinksterToolView extends BWbView {
         splitPane.setWidget1(pane);
 
         resultsPane = new BTextEditorPane("Results will show here...", 30, 100, false);
-        splitPane.setWidget2(resultsPane);
+        console = new ResultsConsole(resultsPane);
+        saveLogButton = new BButton();
+        saveLogButton.setCommand(new SaveLogCommand(), true, true);
+
+        BEdgePane results = new BEdgePane();
+        results.setCenter(resultsPane);
+        results.setBottom(saveLogButton);
+        splitPane.setWidget2(results);
 
         return splitPane;
     }
@@ -104,17 +169,170 @@ public class BLinksterToolView extends BWbView {
     }
 
     private void addToResultPane(String txt) {
-        resultsPane.setText(resultsPane.getText() + "\n" + txt);
+        console.append(txt);
     }
 
     private void clearResultsPane() {
-        resultsPane.setText("");
+        console.clear();
     }
 
     protected void doLoadValue(BObject arg0, Context arg1) throws Exception {
+        service = (BLinksterService) arg0;
         setContent(generateContent());
     }
 
+    public void deactivated() {
+        stopWatching();
+        if (console != null) {
+            console.close();
+        }
+        super.deactivated();
+    }
+
+    /**
+     * Starts following a submitted job: its progress and, once it is done,
+     * its result are added to the results pane.
+     *
+     * @param job  the ord the service returned for the job
+     * @param name what the job does, such as "Analysis"
+     */
+    private void watch(BOrd job, String name) {
+        stopWatching();
+        try {
+            watchedJob = (BLinkJob) job.get(service);
+        } catch (Exception e) {
+            log.error("Unable to follow " + job, e);
+            addToResultPane("Unable to follow the job, open it to see how it went.");
+            return;
+        }
+        watchedName = name;
+        watchedProgress = -1;
+        jobTicket = Clock.schedulePeriodically(this, JOB_POLL, checkJob, null);
+    }
+
+    private void stopWatching() {
+        if (jobTicket != null) {
+            jobTicket.cancel();
+            jobTicket = null;
+        }
+        watchedJob = null;
+    }
+
+    /**
+     * Brings the job being watched up to date.  This runs on the Clock
+     * thread, so the results are added from the UI thread afterwards.
+     */
+    public void doCheckJob() {
+        final BLinkJob job = watchedJob;
+        if (job == null) {
+            return;
+        }
+        Exception lost = null;
+        try {
+            job.lease();
+        } catch (Exception e) {
+            lost = e;
+        }
+        final Exception e = lost;
+        EventQueue.invokeLater(new Runnable() {
+            public void run() {
+                report(job, e);
+            }
+        });
+    }
+
+    /**
+     * Adds the progress of the job being watched, and once it is done its
+     * summary.  An analysis that succeeded enables Link, as long as neither
+     * side changed while it ran.  Runs on the UI thread.
+     *
+     * @param job  the job just leased
+     * @param lost why it could not be leased, or null
+     */
+    private void report(BLinkJob job, Exception lost) {
+        if (job != watchedJob) {
+            // stopped watching, or started on another job, since the lease
+            return;
+        }
+        if (lost != null) {
+            stopWatching();
+            addToResultPane(" ERROR - Lost track of the job. " + lost.getMessage());
+            console.finish();
+            return;
+        }
+
+        String name = watchedName;
+        BJobState state = job.getJobState();
+        if (state != BJobState.success && state != BJobState.failed && state != BJobState.canceled) {
+            int progress = job.getProgress();
+            if (progress >= 0 && progress != watchedProgress) {
+                watchedProgress = progress;
+                addToResultPane(name + " " + progress + "% done");
+                console.flush();
+            }
+            return;
+        }
+        stopWatching();
+        // every job keeps a summary, counts and a few sample rows, never a line per row
+        addToResultPane(job.getResult());
+        boolean analysis = name.equals(ANALYSIS);
+        if (state == BJobState.success && analysis && analysisCurrent) {
+            linkButton.getCommand().setEnabled(true);
+            addToResultPane("Analysis succeeded, Link is enabled.");
+        } else if (state == BJobState.success && analysis) {
+            addToResultPane("Analysis succeeded, but the rows have changed since. Analyze again to enable Link.");
+        } else if (state == BJobState.success) {
+            addToResultPane(name + " succeeded.");
+        } else if (analysis) {
+            addToResultPane("ERROR:  Linking not enabled");
+            addToResultPane("REASON: Analysis " + state.getTag() + ".");
+        } else {
+            addToResultPane(name + " " + state.getTag() + ".");
+        }
+        console.finish();
+    }
+
+    /**
+     * Either side's rows changed, so the last analysis no longer covers
+     * them: Link stays disabled until the plan is analyzed again, even if an
+     * analysis that is still running succeeds.
+     */
+    public void doSideChanged() {
+        analysisCurrent = false;
+        if (linkButton.getCommand().isEnabled()) {
+            linkButton.getCommand().setEnabled(false);
+            addToResultPane("The rows changed, analyze again to enable Link.");
+            console.finish();
+        }
+    }
+
+    /**
+     * @return the plan both sides were last compiled from
+     * @throws IllegalStateException if either side has not been compiled,
+     *                               or was cleared since
+     */
+    private BLinkPlan makePlan() {
+        checkCompiled(linkFrom, "Link From");
+        checkCompiled(linkTo, "Link To");
+        BLinkPlan plan = new BLinkPlan();
+        plan.setFromTemplate(linkFrom.getCompiledTemplateText());
+        plan.setFromRange(linkFrom.getCompiledRangeText());
+        plan.setFromSlot(linkFrom.getCompiledSlotText());
+        plan.setToTemplate(linkTo.getCompiledTemplateText());
+        plan.setToRange(linkTo.getCompiledRangeText());
+        plan.setToSlot(linkTo.getCompiledSlotText());
+        plan.setJoin(joinText.getText().trim());
+        plan.setReconcile(reconcileCheck.isSelected());
+        plan.setRemoveStale(reconcileCheck.isSelected() && removeStaleCheck.isSelected());
+        return plan;
+    }
+
+    private static void checkCompiled(BLinksterSide side, String name) {
+        if (side.getCompiledTemplateText() == null) {
+            throw new IllegalStateException("The " + name + " side has not been compiled, compile it first");
+        }
+    }
+
     /**
      * Once verified, this Command will do the actually
      * linking of the objects in the lists.
@@ -133,74 +351,27 @@ public class BLinksterToolView extends BWbView {
             );
         }
 
+        /**
+         * Hands the whole plan to the service, which links every row in a
+         * background job.  Progress, the summary and canceling are all
+         * found on the job.
+         */
         public CommandArtifact doInvoke() {
+            stopWatching();
             clearResultsPane();
-            int count = linkFrom.getList().getItemCount();
-
-            log.message("Linking " + count + " components.");
-            for (int i = 0; i < count; i++) {
-                // get the ord
-                String fromOrdString = (String) linkFrom.getList().getItem(i);
-                String toOrdString = (String) linkTo.getList().getItem(i);
-
-                String fromOrd = fromOrdString.substring(0, fromOrdString.lastIndexOf('.'));
-                String toOrd = toOrdString.substring(0, toOrdString.lastIndexOf('.'));
-
-                // get the slot
-                String fromSlot = fromOrdString.substring(fromOrdString.lastIndexOf('.') + 1);
-                String toSlot = toOrdString.substring(toOrdString.lastIndexOf('.') + 1);
-
-                // get the ord object
-                BComponent from = null;
-                BComponent to = null;
-                try {
-                    from = BOrd.make(rootOrd, fromOrd).get(Sys.getStation()).asComponent();
-                    to = BOrd.make(rootOrd, toOrd).get(Sys.getStation()).asComponent();
-
-                } catch (Exception e) {
-                    addToResultPane(" ERROR - Unable to resolve components. " + e.getMessage());
-                    log.error("Unable to resolve components", e);
-                    continue;
-                }
-
-                //
-                // it would seem that the makeLink on BComponent does everything we need,
-                // including checking for (and creating) BConversionLink objects
-                // as needed.  So we will let that method do our heavy lifting.
-                try {
-                    LinkCheck linkCheck = to.checkLink(from, from.getSlot(fromSlot), to.getSlot(toSlot), null);
-                    if (linkCheck.isValid()) {
-                        BLink link = to.makeLink(from, from.getSlot(fromSlot), to.getSlot(toSlot), null);
-                        String linkName = "rwLink_" + fromSlot + "_" + toSlot + "?";
-                        to.add(linkName, link);
-                        if (isConversionLink(link)) {
-                            addToResultPane(" Conv Link: " + from.toPathString() + "[" + fromSlot + "] -> " + to.toPathString() + "[" + toSlot + "]");
-                        } else {
-                            addToResultPane(" Link: " + from.toPathString() + "[" + fromSlot + "] -> " + to.toPathString() + "[" + toSlot + "]");
-                        }
-                    } else {
-                        addToResultPane(" Invalid Link - Unable to create link.  " + linkCheck.getInvalidReason());
-                    }
-
-                } catch (Exception e) {
-                    addToResultPane(" An error occurred while attempting to add the link.  ERROR:" + e.getMessage());
-                    log.error("Unable to add link", e);
-                }
+
+            log.message("Linking " + linkFrom.getRowCount() + " components.");
+            try {
+                BOrd job = service.submitLinkJob(makePlan());
+                addToResultPane("Link job submitted: " + job);
+                watch(job, "Link");
+            } catch (Exception e) {
+                addToResultPane(" ERROR - Unable to link. " + e.getMessage());
+                log.error("Unable to link", e);
             }
+            console.finish();
             return null;
         }
-
-        /**
-         * We need to maintain backwards compatibility, so since 3.5 does not
-         * know anything about javax.baja.sys.BConversionLink we need to use
-         * the String representation of the Type to determine what we got back.
-         *
-         * @param link
-         * @return
-         */
-        private boolean isConversionLink(BLink link) {
-            return link.getType().toString().equals("baja:ConversionLink");
-        }
     }
 
     /**
@@ -224,66 +395,43 @@ public class BLinksterToolView extends BWbView {
         /**
          * So what do I need to analyze?
          * * Make sure that both lists are populated
-         * * Make sure that both lists have equal number of elements
+         * * Make sure that both lists have equal number of elements, unless joined
          */
         public CommandArtifact doInvoke() {
+            stopWatching();
             clearResultsPane();
+            linkButton.getCommand().setEnabled(false);
             // both are populated
 
-            addToResultPane(BAbsTime.now().toString());
-            addToResultPane("Analyzing started...");
             try {
                 bothArePopulated();
-                addToResultPane("   Both lists are populated... done");
-
                 bothHaveSameAmountOfElements();
-                addToResultPane("   Both lists are equal in size... done");
-
-                addToResultPane("   Checking generated ords \"From\"...");
-                checkOrds(linkFrom);
-
-                addToResultPane("   Checking generated ords \"To\"...");
-                checkOrds(linkTo);
 
-                linkButton.getCommand().setEnabled(true);
-                addToResultPane("Check complete");
+                // the station resolves every ord and remembers the handles,
+                // so the link that follows does not resolve them again
+                BOrd job = service.submitAnalyzeJob(makePlan());
+                analysisCurrent = true;
+                addToResultPane("Analyze job submitted: " + job);
+                addToResultPane("Link is enabled once the analysis succeeds.");
+                watch(job, ANALYSIS);
             } catch (Exception e) {
                 linkButton.getCommand().setEnabled(false); // should already be false - just in case
                 addToResultPane("ERROR:  Linking not enabled");
                 addToResultPane("REASON: " + e.getMessage());
             }
+            console.finish();
             return null;
         }
 
-        private void checkOrds(BLinksterSide side)
+        private void bothHaveSameAmountOfElements()
                 throws Exception {
-            int count = side.getList().getItemCount();
-
-            for (int i = 0; i < count; i++) {
-                String thisOrdString = (String) side.getList().getItem(i);
-
-                // the string consists of the ord, followed by a period 
-                // then the slot
-                String ord = thisOrdString.substring(0, thisOrdString.lastIndexOf('.'));
-                String slot = thisOrdString.substring(thisOrdString.lastIndexOf('.') + 1);
-                if (ord == null || ord.length() <= 0 || slot == null || slot.length() <= 0) {
-                    throw new Exception("Could not parse ord (" + thisOrdString + ")");
-                }
-                // end of verifying 
-
-                OrdTarget current = BOrd.make(rootOrd, ord).resolve();
-                String rwOk = current.canRead() && current.canWrite() ? " [R/W]" : " [Perm Error]";
-                String handle = current.get().asComponent().getHandleOrd().toString();
-                Slot slotObj = current.get().asComponent().getSlot(slot);
-                String slotCheck = (slotObj != null) ? " [" + slot + " ok]" : " [" + slot + " DNE]";
-                addToResultPane("    Resolving \"" + ord + "\" " + rwOk + " [" + handle + "]" + slotCheck);
+            // a join pairs by coordinates, the station checks that it pairs anything
+            if (joinText.getText().trim().length() > 0) {
+                return;
             }
-        }
 
-        private void bothHaveSameAmountOfElements()
-                throws Exception {
-            int one = linkFrom.getList().getModel().getItemCount();
-            int two = linkTo.getList().getModel().getItemCount();
+            int one = linkFrom.getRowCount();
+            int two = linkTo.getRowCount();
 
             if (one != two) {
                 throw new Exception("Sides do not match (" + one + " != " + two + ")");
@@ -293,12 +441,79 @@ public class BLinksterToolView extends BWbView {
 
         private void bothArePopulated()
                 throws Exception {
-            if (linkFrom.getList().getItemCount() <= 0 || linkTo.getList().getItemCount() <= 0) {
+            if (linkFrom.getRowCount() <= 0 || linkTo.getRowCount() <= 0) {
                 throw new Exception("One or both of the lists are empty");
             }
         }
     }
 
+    /**
+     * Checks every pair the way Link would, checkLink included, without
+     * linking anything.  The station spreads the work over several threads
+     * and reports the problems grouped by kind.
+     *
+     * @author Will Chapman
+     */
+    class DryRunCommand extends Command {
+
+        public DryRunCommand() {
+            super(
+                    dryRunButton,
+                    "Dry Run",
+                    BImage.make("module://linkster/com/raxware/linkster/res/icons/clean.png"),
+                    null,
+                    "Checks that every link can be made, without making any"
+            );
+        }
+
+        public CommandArtifact doInvoke() {
+            stopWatching();
+            clearResultsPane();
+            try {
+                BOrd job = service.submitDryRunJob(makePlan());
+                addToResultPane("Dry run job submitted: " + job);
+                watch(job, "Dry run");
+            } catch (Exception e) {
+                addToResultPane(" ERROR - Unable to dry run. " + e.getMessage());
+                log.error("Unable to dry run", e);
+            }
+            console.finish();
+            return null;
+        }
+    }
+
+    /**
+     * Saves every line of the results since they were last cleared, not just
+     * the ones still showing.
+     *
+     * @author Will Chapman
+     */
+    class SaveLogCommand extends Command {
+
+        public SaveLogCommand() {
+            super(
+                    saveLogButton,
+                    "Save Log",
+                    BImage.make(BIcon.std("save.png")),
+                    null,
+                    "Saves the full results log to a file in your home directory"
+            );
+        }
+
+        public CommandArtifact doInvoke() {
+            File file = new File(System.getProperty("user.home"), "linkster-" + System.currentTimeMillis() + ".log");
+            try {
+                console.save(file);
+                console.append("Log saved to " + file);
+            } catch (Exception e) {
+                console.append(" ERROR - Unable to save the log. " + e.getMessage());
+                log.error("Unable to save the log", e);
+            }
+            console.finish();
+            return null;
+        }
+    }
+
     /**
      * As a convienence, it will copy the data in the "from" side to the "to" side
      * The "to" side will still need to be compiled before linking is enabled.
@@ -328,7 +543,48 @@ public class BLinksterToolView extends BWbView {
 
     /*+ ------------ BEGIN BAJA AUTO GENERATED CODE ------------ +*/
     /*@ $com.raxware.linkster.ui.BLinksterToolView(3445711970)1.0$ @*/
-    /* Generated Thu Apr 24 11:28:58 EDT 2008 by Slot-o-Matic 2000 (c) Tridium, Inc. 2000 */
+    /* Generated Sun Oct 18 09:30:00 EDT 2026 by Slot-o-Matic (c) Tridium, Inc. 2012 */
+
+////////////////////////////////////////////////////////////////
+// Action "checkJob"
+////////////////////////////////////////////////////////////////
+
+    /**
+     * Slot for the {@code checkJob} action.
+     *
+     * @see #checkJob()
+     */
+    public static final Action checkJob = newAction(Flags.HIDDEN, null);
+
+    /**
+     * Invoke the {@code checkJob} action.
+     *
+     * @see #checkJob
+     */
+    public void checkJob() {
+        invoke(checkJob, null, null);
+    }
+
+////////////////////////////////////////////////////////////////
+// Action "sideChanged"
+////////////////////////////////////////////////////////////////
+
+    /**
+     * Slot for the {@code sideChanged} action.
+     *
+     * @see #sideChanged()
+     */
+    public static final Action sideChanged = newAction(Flags.HIDDEN, null);
+
+    /**
+     * Invoke the {@code sideChanged} action.
+     *
+     * @see #sideChanged
+     */
+    public void sideChanged() {
+        invoke(sideChanged, null, null);
+    }
+
 ////////////////////////////////////////////////////////////////
 // Type
 ////////////////////////////////////////////////////////////////
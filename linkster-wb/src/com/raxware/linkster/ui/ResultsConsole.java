@@ -0,0 +1,289 @@
+/*
+ Licensed to the Apache Software Foundation (ASF) under one
+ or more contributor license agreements.  See the NOTICE file
+ distributed with this work for additional information
+ regarding copyright ownership.  The ASF licenses this file
+ to you under the Apache License, Version 2.0 (the
+ "License"); you may not use this file except in compliance
+ with the License.  You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing,
+ software distributed under the License is distributed on an
+ "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ KIND, either express or implied.  See the License for the
+ specific language governing permissions and limitations
+ under the License.
+ */
+package com.raxware.linkster.ui;
+
+import javax.baja.log.Log;
+import javax.baja.ui.pane.BTextEditorPane;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+/**
+ * Feeds the results pane of the tool view: what each command did, then the
+ * progress of the job it submitted and, once it is done, the job's summary.
+ * <p>
+ * Setting the pane's text to its old text plus one more line costs more with
+ * every line, which on a big job took longer than the linking itself.
+ * Instead, lines go into a ring buffer of the last <code>MAX_LINES</code>, and
+ * the pane is redrawn from the buffer at most every <code>FLUSH_MILLIS</code>
+ * and once more when a command is done (<code>finish()</code>).  Each redraw costs the same no matter
+ * how long the job has run.
+ * <p>
+ * Runs of lines of the same kind (the same text up to the first quote,
+ * bracket or dash, ignoring numbers) are cut short after
+ * <code>MAX_REPEATS</code>, with one line saying how many more there were.
+ * <p>
+ * Every line, shown or not, is also written to a spool file so the full log
+ * can be saved when it is wanted.
+ *
+ * @author Will Chapman
+ */
+class ResultsConsole {
+
+    private static final Log log = Log.getLog("linkster");
+
+    static final int MAX_LINES = 2000;
+    static final int MAX_REPEATS = 5;
+    static final long FLUSH_MILLIS = 250;
+
+    private final BTextEditorPane pane;
+    private final String[] lines = new String[MAX_LINES];
+    private int head;
+    private int count;
+    private long dropped;
+
+    private String lastKind;
+    private int repeats;
+    private long suppressed;
+
+    private boolean dirty;
+    private long lastFlush;
+
+    private File spoolFile;
+    private Writer spool;
+
+    /**
+     * @param pane where the lines are shown
+     */
+    ResultsConsole(BTextEditorPane pane) {
+        this.pane = pane;
+    }
+
+    /**
+     * Adds one or more lines.
+     *
+     * @param text the text, split into lines at each newline
+     */
+    void append(String text) {
+        int start = 0;
+        while (true) {
+            int nl = text.indexOf('\n', start);
+            String line = nl < 0 ? text.substring(start) : text.substring(start, nl);
+            appendLine(line);
+            if (nl < 0) {
+                break;
+            }
+            start = nl + 1;
+        }
+
+        if (System.currentTimeMillis() - lastFlush >= FLUSH_MILLIS) {
+            flush();
+        }
+    }
+
+    private void appendLine(String line) {
+        spool(line);
+
+        String kind = kindOf(line);
+        if (kind.equals(lastKind)) {
+            if (++repeats > MAX_REPEATS) {
+                suppressed++;
+                return;
+            }
+        } else {
+            endRun();
+            lastKind = kind;
+            repeats = 1;
+        }
+        add(line);
+    }
+
+    /**
+     * Ends a run of repeated lines, saying how many were left out.
+     */
+    private void endRun() {
+        if (suppressed > 0) {
+            add("   ... " + suppressed + " more like the above");
+            suppressed = 0;
+        }
+    }
+
+    private void add(String line) {
+        if (count == MAX_LINES) {
+            head = (head + 1) % MAX_LINES;
+            count--;
+            dropped++;
+        }
+        lines[(head + count) % MAX_LINES] = line;
+        count++;
+        dirty = true;
+    }
+
+    /**
+     * Closes off any run of repeated lines and redraws the pane; called when
+     * a command is done adding lines.
+     */
+    void finish() {
+        endRun();
+        lastKind = null;
+        flush();
+    }
+
+    /**
+     * Redraws the pane if anything was added since the last time.
+     */
+    void flush() {
+        lastFlush = System.currentTimeMillis();
+        if (!dirty) {
+            return;
+        }
+
+        StringBuilder sb = new StringBuilder();
+        if (dropped > 0) {
+            sb.append("... ").append(dropped).append(" earlier lines, save the log to see them\n");
+        }
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                sb.append('\n');
+            }
+            sb.append(lines[(head + i) % MAX_LINES]);
+        }
+        pane.setText(sb.toString());
+        dirty = false;
+    }
+
+    /**
+     * Empties the pane and starts a new log.
+     */
+    void clear() {
+        head = 0;
+        count = 0;
+        dropped = 0;
+        lastKind = null;
+        repeats = 0;
+        suppressed = 0;
+        close();
+        dirty = false;
+        pane.setText("");
+    }
+
+    /**
+     * Closes and deletes the spool file; called when the view goes away.  A
+     * line added after this starts a new one.
+     */
+    void close() {
+        closeSpool();
+        if (spoolFile != null) {
+            spoolFile.delete();
+            spoolFile = null;
+        }
+    }
+
+    /**
+     * Copies every line since the last clear to a file.
+     *
+     * @param file where to save the log
+     * @throws IOException if the log can not be written
+     */
+    void save(File file) throws IOException {
+        if (spool != null) {
+            spool.flush();
+        }
+        OutputStream out = new FileOutputStream(file);
+        try {
+            if (spoolFile != null) {
+                InputStream in = new FileInputStream(spoolFile);
+                try {
+                    byte[] buf = new byte[8192];
+                    int n;
+                    while ((n = in.read(buf)) > 0) {
+                        out.write(buf, 0, n);
+                    }
+                } finally {
+                    in.close();
+                }
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    private void spool(String line) {
+        try {
+            if (spool == null) {
+                if (spoolFile == null) {
+                    spoolFile = File.createTempFile("linkster", ".log");
+                    spoolFile.deleteOnExit();
+                }
+                spool = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(spoolFile, true), "UTF-8"));
+            }
+            spool.write(line);
+            spool.write('\n');
+        } catch (IOException e) {
+            // the pane still has the recent lines, only saving the full log is lost
+            log.error("Unable to write the results log", e);
+            closeSpool();
+        }
+    }
+
+    private void closeSpool() {
+        if (spool != null) {
+            try {
+                spool.close();
+            } catch (IOException ignored) {
+            }
+            spool = null;
+        }
+    }
+
+    /**
+     * @return the text up to the first quote, bracket or " - ", without digits
+     */
+    static String kindOf(String line) {
+        int end = line.length();
+        int q = line.indexOf('"');
+        if (q >= 0 && q < end) {
+            end = q;
+        }
+        int b = line.indexOf('[');
+        if (b >= 0 && b < end) {
+            end = b;
+        }
+        int d = line.indexOf(" - ");
+        if (d >= 0 && d < end) {
+            end = d;
+        }
+
+        StringBuilder sb = new StringBuilder(end);
+        for (int i = 0; i < end; i++) {
+            char ch = line.charAt(i);
+            if (ch < '0' || ch > '9') {
+                sb.append(ch);
+            }
+        }
+        return sb.toString();
+    }
+}
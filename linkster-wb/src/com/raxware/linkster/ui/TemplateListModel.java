@@ -0,0 +1,169 @@
+/*
+ Licensed to the Apache Software Foundation (ASF) under one
+ or more contributor license agreements.  See the NOTICE file
+ distributed with this work for additional information
+ regarding copyright ownership.  The ASF licenses this file
+ to you under the Apache License, Version 2.0 (the
+ "License"); you may not use this file except in compliance
+ with the License.  You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing,
+ software distributed under the License is distributed on an
+ "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ KIND, either express or implied.  See the License for the
+ specific language governing permissions and limitations
+ under the License.
+ */
+package com.raxware.linkster.ui;
+
+import com.raxware.linkster.qglobber.CompiledTemplate;
+import com.raxware.linkster.qglobber.Range;
+
+import javax.baja.ui.list.ListModel;
+
+/**
+ * A list model that never holds the expanded rows.
+ * <p>
+ * The list only asks for the rows it is painting, so each row is rendered
+ * from the compiled template by index when it is asked for.  The list gets
+ * its total from <code>size()</code>, so even a plan of a hundred thousand rows
+ * shows up at once and takes the same memory as a plan of ten.
+ * <p>
+ * Painting asks for the same visible rows over and over, so the last few
+ * hundred rendered rows are kept in a small table keyed by index.  Each entry
+ * is an immutable index and text pair, so a model can be read by the compile
+ * thread building its replacement while the UI thread is still painting it.
+ *
+ * @author Will Chapman
+ */
+class TemplateListModel extends ListModel {
+
+    private static final int CACHE_SIZE = 256;
+
+    private final CompiledTemplate template;
+    private final int count;
+    private final Row[] cache = new Row[CACHE_SIZE];
+    private final long added;
+    private final long removed;
+
+    /**
+     * @param template the rows to show, or null for an empty list
+     */
+    TemplateListModel(CompiledTemplate template) {
+        this(template, null);
+    }
+
+    /**
+     * Works out which rows were added and removed since another model, and
+     * carries the rows it already rendered over to this one.  When only the
+     * ranges changed and each is still the same kind, a row keeps its text
+     * as long as its coordinates are still in range, so widening
+     * <code>1..40</code> to <code>1..48</code> only renders the 8 rows that
+     * were added, at whatever index they have moved to.  Otherwise every row
+     * is new.
+     *
+     * @param template the rows to show, or null for an empty list
+     * @param previous the model this one replaces, or null
+     */
+    TemplateListModel(CompiledTemplate template, TemplateListModel previous) {
+        this.template = template;
+        this.count = template == null ? 0 : (int) Math.min(template.size(), Integer.MAX_VALUE);
+        long before = previous == null || previous.template == null ? 0 : previous.template.size();
+        long after = template == null ? 0 : template.size();
+        long kept = 0;
+        if (template != null && previous != null && previous.template != null
+                && previous.template.getTemplate().equals(template.getTemplate())
+                && sameKinds(previous.template, template)) {
+            kept = overlap(previous.template, template);
+            carryOver(previous);
+        }
+        this.added = after - kept;
+        this.removed = before - kept;
+    }
+
+    /**
+     * Coordinates only name the same rows if every placeholder is still the
+     * same kind: coordinate 0 is <code>1</code> in a numeric range but
+     * <code>A</code> in a letter range.
+     */
+    private static boolean sameKinds(CompiledTemplate a, CompiledTemplate b) {
+        if (a.getDimensions() != b.getDimensions()) {
+            return false;
+        }
+        for (int i = 0; i < a.getDimensions(); i++) {
+            if (a.getRange(i).isAlpha() != b.getRange(i).isAlpha()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the number of rows whose coordinates are in both, the product
+     * of how much each pair of ranges overlaps
+     */
+    private static long overlap(CompiledTemplate a, CompiledTemplate b) {
+        long n = 1;
+        for (int i = 0; i < a.getDimensions() && n > 0; i++) {
+            Range ra = a.getRange(i);
+            Range rb = b.getRange(i);
+            n *= Math.max(0, (long) Math.min(ra.getEnd(), rb.getEnd()) - Math.max(ra.getStart(), rb.getStart()) + 1);
+        }
+        return n;
+    }
+
+    private void carryOver(TemplateListModel previous) {
+        int[] coords = new int[template.getDimensions()];
+        for (int i = 0; i < CACHE_SIZE; i++) {
+            Row row = previous.cache[i];
+            if (row == null) {
+                continue;
+            }
+            previous.template.decode(row.index, coords);
+            long index = template.encode(coords);
+            if (index >= 0 && index < count) {
+                cache[(int) index & (CACHE_SIZE - 1)] = new Row((int) index, row.text);
+            }
+        }
+    }
+
+    /**
+     * @return how many rows this model has that the one it replaced did not
+     */
+    long getAdded() {
+        return added;
+    }
+
+    /**
+     * @return how many rows the model this one replaced had that this one does not
+     */
+    long getRemoved() {
+        return removed;
+    }
+
+    public int getItemCount() {
+        return count;
+    }
+
+    public Object getItem(int index) {
+        int slot = index & (CACHE_SIZE - 1);
+        Row row = cache[slot];
+        if (row == null || row.index != index) {
+            row = new Row(index, template.get(index));
+            cache[slot] = row;
+        }
+        return row.text;
+    }
+
+    private static final class Row {
+        final int index;
+        final String text;
+
+        Row(int index, String text) {
+            this.index = index;
+            this.text = text;
+        }
+    }
+}